@@ -6,6 +6,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * A class for command line dbf reading.
@@ -20,7 +21,7 @@ public class DBFCommandLineStarter {
     private File fileLog = null;
     private BufferedWriter buff = null;
 
-    private void testRead(File file) {
+    private void testRead(File file, String[] projectedColumns) {
         boolean noErr = true;
         createLog(file);
         try {
@@ -28,30 +29,36 @@ public class DBFCommandLineStarter {
             println(dbfHeader.toString());
             println(null);
 
-            StringBuilder columns = new StringBuilder(dbfHeader.getCountColumns() * 2);
             Iterator<DbfColumn> iter = dbfHeader.getColumnIterator();
             while (iter.hasNext()) {
                 DbfColumn column = iter.next();
                 println(column.toString());
-                if (columns.length() > 0) {
-                    columns.append(COMMA);
-                }
-                columns.append(column.getColumnName());
             }
             println(null);
             println("*** DBF content as comma delimited CSV ***");
             println(null);
 
+            DbfIterator dbfIterator = dbfHeader.getDbfIterator();
+            List<DbfColumn> csvColumns = dbfHeader.getOrderedColumnList();
+            if (projectedColumns != null) {
+                dbfIterator.project(projectedColumns);
+                csvColumns = dbfIterator.getProjection().getColumns();
+            }
+
+            StringBuilder columns = new StringBuilder(csvColumns.size() * 2);
+            for (DbfColumn column : csvColumns) {
+                if (columns.length() > 0) {
+                    columns.append(COMMA);
+                }
+                columns.append(column.getColumnName());
+            }
             println(columns.toString());
 
-            DbfIterator dbfIterator = dbfHeader.getDbfIterator();
             while (dbfIterator.hasMoreRecords()) {
                 DbfRecord dbfRecord = dbfIterator.nextRecord();
 
                 boolean firstColumn = true;
-                Iterator<DbfColumn> iterColumn = dbfHeader.getColumnIterator();
-                while (iterColumn.hasNext()) {
-                    DbfColumn column = iterColumn.next();
+                for (DbfColumn column : csvColumns) {
                     if (!firstColumn) {
                         print(COMMA);
                     }
@@ -133,10 +140,10 @@ public class DBFCommandLineStarter {
         }
     }
 
-    private void testRead(String path) {
+    private void testRead(String path, String[] projectedColumns) {
         File file = new File(path);
         if (file.exists()) {
-            testRead(file);
+            testRead(file, projectedColumns);
         } else {
             System.out.println("File does not exists");
         }
@@ -147,14 +154,18 @@ public class DBFCommandLineStarter {
      */
     public static void main(String[] args) {
 
-        if (args == null || args.length == 0 || args.length > 1) {
+        if (args == null || args.length == 0 || args.length > 2) {
             String info = "java -jar dbfEngine-"
-                    + DbfConstants.DBF_ENGINE_VERSION + ".jar" + " your.dbf";
+                    + DbfConstants.DBF_ENGINE_VERSION + ".jar" + " your.dbf [COLUMN1,COLUMN2,...]";
             System.out.println("*** Sample of usage ***");
             System.out.println(info);
 
         } else {
-            new DBFCommandLineStarter().testRead(args[0]);
+            String[] projectedColumns = null;
+            if (args.length == 2) {
+                projectedColumns = args[1].split(COMMA);
+            }
+            new DBFCommandLineStarter().testRead(args[0], projectedColumns);
         }
 
     }
@@ -1,6 +1,9 @@
 package ru.smartflex.tools.dbf;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -27,12 +30,26 @@ public class DbfAppender {
     private File dbfFileExisted = null;
     private boolean flagAppendExistedFile = false;
 
+    private static final int BODY_BUFFER_SIZE = 64 * 1024;
+    private static final int VFP_BACKLINK_LENGTH = 263;
+    private static final byte VFP_FLAG_MEMO = 0x02;
+
+    private File dbfFile = null;
+    private FileChannel dbfChannel = null;
+    private boolean endOfFileMarker = false;
+    private File tempDbf = null;
+    private OutputStream bodyStream = null;
+    private DbfMemoWriter memoWriter = null;
+    private OutputStream tempStream = null;
+
     DbfAppender(File dbfFile, DbfCodePages dbfCodePage) {
         this.dbfCodePage = dbfCodePage;
         if (dbfCodePage == null) {
             throw new DbfEngineException(DbfConstants.EXCP_CP_MISSED);
         }
         createOutputStream(dbfFile, false);
+        this.dbfFile = dbfFile;
+        this.dbfChannel = ((FileOutputStream) dbfStream).getChannel();
     }
 
     /**
@@ -68,7 +85,8 @@ public class DbfAppender {
     }
 
     /**
-     * Defines columns for dbf file.
+     * Defines columns for dbf file. If there are nullable columns (see {@link DbfColumn#setNullable(boolean)}),
+     * varchar or varbinary columns, then hidden <code>_NullFlags</code> column is added as the last one.
      *
      * @param dbfColumns array of dbf columns
      * @since 1.00
@@ -83,8 +101,11 @@ public class DbfAppender {
         int offset = 1;
         int prevLen = 0;
         int cntColumns = 0;
-        for (DbfColumn dc : dbfColumns) {
-            if (dc != null) {
+        for (DbfColumn column : dbfColumns) {
+            // _NullFlags of other file does not match these columns, it is created again
+            if (column != null && column.getDbfColumnType() != DbfColumnTypes.NullFlags) {
+                // column of other header is copied, so its index and offset are kept for the other header
+                DbfColumn dc = column.getColumnIndex() >= 0 ? new DbfColumn(column) : column;
                 cntColumns++;
                 if (dbfHeader == null) {
                     dbfHeader = new DbfHeader();
@@ -98,6 +119,13 @@ public class DbfAppender {
         if (cntColumns == 0) {
             throw new DbfEngineException(DbfConstants.EXCP_COLUMN_ADD);
         }
+        int bits = dbfHeader.countNullFlagsBits();
+        if (bits > 0) {
+            DbfColumn nullFlags = DbfColumn.nullFlags((bits + 7) / 8);
+            nullFlags.getDbfColumnPosition().setOffset(offset + prevLen);
+            dbfHeader.addColumn(nullFlags);
+            dbfHeader.assignNullFlags();
+        }
     }
 
     /**
@@ -114,9 +142,29 @@ public class DbfAppender {
         }
         dbfHeader = new DbfHeader();
 
-        for (DbfColumn dc : header.getOrderedColumnList()) {
+        for (DbfColumn column : header.getOrderedColumnList()) {
+            DbfColumn dc = new DbfColumn(column);
+            dc.getDbfColumnPosition().setOffset(column.getDbfColumnPosition().getOffset());
             dbfHeader.addColumn(dc);
         }
+        dbfHeader.assignNullFlags();
+    }
+
+    /**
+     * Defines columns for dbf file as copies of given columns of source header, in given order.
+     * Records of source file are copied into such file by {@link DbfStatement#fillStatement(DbfRecord)}
+     * without decoding of values.
+     *
+     * @param header      source header of dbf file
+     * @param columnNames names of source columns
+     * @since 1.13
+     */
+    public void defineColumns(DbfHeader header, String... columnNames) {
+        DbfColumn[] dbfColumns = new DbfColumn[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            dbfColumns[i] = new DbfColumn(header.getDbfColumn(columnNames[i]));
+        }
+        defineColumns(dbfColumns);
     }
 
     /**
@@ -125,14 +173,79 @@ public class DbfAppender {
      * @since 1.00
      */
     public void writeDbfAndClose() {
+        if (dbfStatement != null) {
+            dbfStatement.executeBatch();
+        }
+        if (memoWriter == null && dbfFile != null && dbfHeader.hasMemoColumns()) {
+            // dbf file with memo columns must have memo file
+            getMemoWriter();
+        }
+        if (memoWriter != null) {
+            memoWriter.close();
+        }
         if (flagAppendExistedFile) {
             writeDbfAndCloseForAppendMode();
+        } else if (dbfFile != null) {
+            writeDbfAndCloseForDirectMode();
         } else {
             writeDbfAndCloseForWriteMode();
         }
     }
 
-    private void writeDbfAndCloseForWriteMode() {
+    /**
+     * Returns output stream for records. The stream is opened once.
+     *
+     * @return output stream for records
+     */
+    OutputStream getBodyStream() {
+        if (bodyStream == null) {
+            bodyStream = openBodyStream();
+        }
+        return bodyStream;
+    }
+
+    /**
+     * Opens output stream for records. For dbf file records are written directly into the file after header,
+     * and header is patched at closing. For output stream records are written into temporary file, because header
+     * has to be written first.
+     *
+     * @return output stream for records
+     */
+    private OutputStream openBodyStream() {
+        try {
+            if (flagAppendExistedFile) {
+                RandomAccessFile randomFile = new RandomAccessFile(dbfFileExisted, "rw");
+                dbfChannel = randomFile.getChannel();
+                long position = dbfHeader.getFirstRecordPosition()
+                        + (long) dbfHeader.getCountRecords() * dbfHeader.getLengthRecord();
+                if (dbfChannel.size() > position) {
+                    ByteBuffer flag = ByteBuffer.allocate(1);
+                    dbfChannel.read(flag, position);
+                    endOfFileMarker = flag.get(0) == DbfConstants.DBF_END_OF_FILE;
+                }
+                // the end of file marker is overwritten by records
+                dbfChannel.position(position);
+                dbfStream = Channels.newOutputStream(dbfChannel);
+                return dbfStream;
+            }
+            if (dbfFile != null) {
+                if (dbfHeader == null) {
+                    throw new DbfEngineException(DbfConstants.EXCP_COLUMN_ADD);
+                }
+                dbfStream.write(createHeader());
+                return dbfStream;
+            }
+            tempDbf = File.createTempFile("engine", "dbf");
+            tempStream = new FileOutputStream(tempDbf);
+            return tempStream;
+        } catch (FileNotFoundException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_ERR_CREATE, e);
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    private byte[] createHeader() {
 
         if (dbfHeader == null) {
             throw new DbfEngineException(DbfConstants.EXCP_COLUMN_ADD);
@@ -144,24 +257,18 @@ public class DbfAppender {
         }
         // typedbf
         header[0] = (byte) dbfHeader.getTypeDbf();
-        // write date change
-        lockCalendar.lock();
-        try {
-            calendar.setTime(new Date());
-            int day = calendar.get(Calendar.DAY_OF_MONTH);
-            int month = calendar.get(Calendar.MONTH);
-            int year = calendar.get(Calendar.YEAR) % 100;
-            header[1] = (byte) year;
-            header[2] = (byte) month;
-            header[3] = (byte) day;
-        } finally {
-            lockCalendar.unlock();
+        boolean visualFoxPro = hasVisualFoxProColumns();
+        if (visualFoxPro) {
+            header[0] = (byte) DbfType.Visual_FoxPro;
+            if (dbfHeader.hasMemoColumns()) {
+                // table flags: table has memo file
+                header[28] = VFP_FLAG_MEMO;
+            }
+        } else if (dbfHeader.hasMemoColumns()) {
+            header[0] = (byte) DbfType.FoxPro_2_x_with_memo;
         }
-        // write record amount
-        header[4] = (byte) recordAmount;
-        header[5] = (byte) (recordAmount >> 8);
-        header[6] = (byte) (recordAmount >> 16);
-        header[7] = (byte) (recordAmount >> 24);
+        // write date change and record amount
+        fillDateAndCount(header, 1, recordAmount);
 
         // code page
         header[29] = 0;
@@ -202,108 +309,122 @@ public class DbfAppender {
             // dec
             columns[17 + indCol * DbfConstants.DBF_COLUMN_LENGTH] = (byte) dcp
                     .getDbfColumnPosition().getColumnDotAmount();
+            if (visualFoxPro) {
+                int flags = dcp.getFieldFlags();
+                if (dcp.getDbfColumnType() == DbfColumnTypes.Varbinary) {
+                    flags |= DbfColumn.FLAG_BINARY;
+                }
+                columns[18 + indCol * DbfConstants.DBF_COLUMN_LENGTH] = (byte) flags;
+            }
 
+            offset += dcp.getDbfColumnPosition().getColumnLength();
             indCol++;
 
         }
         // **** header again ****
         // first record position
         int frp = header.length + columns.length + 1;
+        if (visualFoxPro) {
+            // backlink to database container, it is empty for free table
+            frp += VFP_BACKLINK_LENGTH;
+        }
         header[8] = (byte) frp;
         header[9] = (byte) (frp >> 8);
         // length
         header[10] = (byte) dbfHeader.getLengthRecord();
         header[11] = (byte) (dbfHeader.getLengthRecord() >> 8);
 
-        writeDbf(header, columns);
-
+        byte[] full = new byte[frp];
+        System.arraycopy(header, 0, full, 0, header.length);
+        System.arraycopy(columns, 0, full, header.length, columns.length);
+        full[header.length + columns.length] = DbfConstants.DBF_END_HEADER;
+        return full;
     }
 
-    void registerNewRecord() {
-        recordAmount++;
-    }
-
-    private void writeDbfAndCloseForAppendMode() {
-        if (recordAmount == 0) {
-            // no one record were added. Therefore return.
-            return;
-        }
-
-        byte[] header = new byte[7];
+    /**
+     * Fills date of last change (YYMMDD) and record amount (little endian) since given offset.
+     */
+    static void fillDateAndCount(byte[] header, int offset, int totalRecords) {
         lockCalendar.lock();
         try {
             calendar.setTime(new Date());
             int day = calendar.get(Calendar.DAY_OF_MONTH);
-            int month = calendar.get(Calendar.MONTH);
+            int month = calendar.get(Calendar.MONTH) + 1;
             int year = calendar.get(Calendar.YEAR) % 100;
-            header[0] = (byte) year;
-            header[1] = (byte) month;
-            header[2] = (byte) day;
+            header[offset] = (byte) year;
+            header[offset + 1] = (byte) month;
+            header[offset + 2] = (byte) day;
         } finally {
             lockCalendar.unlock();
         }
-        int totalRecords = dbfHeader.getCountRecords() + recordAmount;
-        header[3] = (byte) totalRecords;
-        header[4] = (byte) (totalRecords >> 8);
-        header[5] = (byte) (totalRecords >> 16);
-        header[6] = (byte) (totalRecords >> 24);
+        header[offset + 3] = (byte) totalRecords;
+        header[offset + 4] = (byte) (totalRecords >> 8);
+        header[offset + 5] = (byte) (totalRecords >> 16);
+        header[offset + 6] = (byte) (totalRecords >> 24);
+    }
 
-        // change dbf header of existed file
-        RandomAccessFile randomFile = null;
-        try {
-            randomFile = new RandomAccessFile(dbfFileExisted, "rw");
-            randomFile.seek(1);
-            randomFile.write(header);
-        } catch (FileNotFoundException e) {
-            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS, e);
-        } catch (IOException e) {
-            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
-        } finally {
-            if (randomFile != null) {
-                try {
-                    randomFile.close();
-                } catch (Exception e) {
-                    throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
-                }
+    private boolean hasVisualFoxProColumns() {
+        for (DbfColumn column : dbfHeader.getOrderedColumnList()) {
+            if (column.getDbfColumnType().isVisualFoxPro()) {
+                return true;
             }
         }
+        return false;
+    }
 
-        createOutputStream(dbfFileExisted, true);
+    /**
+     * Returns writer of memo file which has the same name as dbf file. The memo file is created if it is not existed.
+     *
+     * @return writer of memo file
+     */
+    synchronized DbfMemoWriter getMemoWriter() {
+        if (memoWriter == null) {
+            File file = dbfFile;
+            if (flagAppendExistedFile) {
+                DbfMemoFile memoFile = DbfMemoFile.forDbf(dbfFileExisted);
+                file = memoFile != null ? memoFile.getFile() : dbfFileExisted;
+            }
+            if (file == null) {
+                throw new DbfEngineException(DbfConstants.EXCP_MEMO_NOT_ALLOWED);
+            }
+            File memoFile = file;
+            if (memoFile.getName().toUpperCase().endsWith(".DBT")) {
+                throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+            }
+            if (!memoFile.getName().toUpperCase().endsWith(".FPT")) {
+                memoFile = DbfMemoWriter.memoFileFor(file);
+            }
+            memoWriter = new DbfMemoWriter(memoFile);
+        }
+        return memoWriter;
+    }
 
-        writeDbf(null, null);
+    void registerNewRecord() {
+        recordAmount++;
     }
 
-    private void writeDbf(byte[] header, byte[] columns) {
+    void registerNewRecords(int count) {
+        recordAmount += count;
+    }
+
+    private void writeDbfAndCloseForWriteMode() {
+        byte[] header = createHeader();
         try {
-            if (!flagAppendExistedFile) {
-                dbfStream.write(header);
-                dbfStream.write(columns);
-                dbfStream.write(DbfConstants.DBF_END_HEADER);
-            }
+            dbfStream.write(header);
 
-            if (dbfStatement != null) {
-                InputStream dbfBody = dbfStatement.getDbfBodyInputStream();
-                final int recordLength = dbfHeader.getLengthRecord();
-                byte[] rec = new byte[recordLength];
-                boolean flag = true;
-                do {
-                    // 08.01.2020 fix bug with stream reading; git:frankvdh
-                    int numLeft = recordLength;
-                    int offs = 0;
-                    while (numLeft > 0) {
-                        int numRead = dbfBody.read(rec, offs, numLeft);
-                        if (numRead == -1) {
-                            flag = false;
-                            break;
-                        }
-                        offs += numRead;
-                        numLeft -= numRead;
-                    }
-                    if (flag) {
-                        dbfStream.write(rec, 0, recordLength);
+            if (tempDbf != null) {
+                tempStream.close();
+                InputStream dbfBody = new FileInputStream(tempDbf);
+                try {
+                    byte[] buffer = new byte[BODY_BUFFER_SIZE];
+                    int numRead;
+                    while ((numRead = dbfBody.read(buffer)) != -1) {
+                        dbfStream.write(buffer, 0, numRead);
                     }
-                } while (flag);
-                dbfBody.close();
+                } finally {
+                    dbfBody.close();
+                    tempDbf.delete();
+                }
             }
 
             dbfStream.flush();
@@ -313,6 +434,64 @@ public class DbfAppender {
         }
     }
 
+    private void writeDbfAndCloseForDirectMode() {
+        try {
+            if (bodyStream == null) {
+                // there were no records, so header is not written yet
+                dbfStream.write(createHeader());
+            } else {
+                dbfStream.flush();
+                patchHeader(dbfChannel, recordAmount);
+            }
+            dbfStream.close();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    private void writeDbfAndCloseForAppendMode() {
+        if (dbfChannel == null) {
+            // no one record were added. Therefore return.
+            return;
+        }
+        try {
+            if (recordAmount > 0) {
+                dbfStream.flush();
+                if (endOfFileMarker) {
+                    dbfStream.write(DbfConstants.DBF_END_OF_FILE);
+                    dbfStream.flush();
+                }
+                patchHeader(dbfChannel, dbfHeader.getCountRecords() + recordAmount);
+            }
+            dbfChannel.close();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Writes date of last change and record amount into header of file without moving of channel position.
+     */
+    private void patchHeader(FileChannel channel, int totalRecords) throws IOException {
+        byte[] header = new byte[7];
+        fillDateAndCount(header, 0, totalRecords);
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        long position = 1;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Returns header of dbf file. Its columns may be used as handles for setters of statement.
+     *
+     * @return header of dbf file or null if columns are not defined yet
+     * @since 1.13
+     */
+    public DbfHeader getDbfHeader() {
+        return dbfHeader;
+    }
+
     /**
      * Returns DbfStatement object for adding records.
      *
@@ -325,4 +504,28 @@ public class DbfAppender {
         }
         return dbfStatement;
     }
+
+    /**
+     * Inserts records produced by several threads. Every producer is invoked once in own thread with own statement,
+     * so formatting of records is done in parallel. Records are written by calling thread which appends blocks
+     * of records filled by producers. Records inserted by {@link #getStatement()} before are written first.
+     * <br>
+     * If order is required then records of producer 0 are written first, then records of producer 1 and so on.
+     * In this case producer waits while its blocks are not written, so the memory is limited. Otherwise blocks
+     * are written in order of arrival.
+     *
+     * @param producers count of producers (threads)
+     * @param ordered   <code>true</code> if records are written in order of producers
+     * @param producer  producer of records
+     * @since 1.13
+     */
+    public void insertParallel(int producers, boolean ordered, DbfRecordProducer producer) {
+        if (dbfHeader == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_ADD);
+        }
+        if (dbfStatement != null) {
+            dbfStatement.executeBatch();
+        }
+        new DbfParallelInsert(dbfHeader, dbfCodePage, this, producers, ordered, producer).insert();
+    }
 }
@@ -0,0 +1,150 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads records of dbf file by their numbers through file channel.
+ * Records are read by positional reads or through memory mapped regions of file.
+ * In the last case the file is mapped by windows of whole records, so files bigger than 2 Gb are handled too.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfChannelReader {
+
+    private static final long MAP_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private FileChannel channel;
+    private long firstRecordPosition;
+    private int lengthRecord;
+    private long fileSize;
+    private long windowSize;
+    private boolean mapped;
+
+    private MappedByteBuffer window = null;
+    private long windowPosition = -1;
+
+    private ByteBuffer flagBuffer = ByteBuffer.allocate(1);
+    private ByteBuffer recordBuffer = null;
+    private DbfProjection projection = null;
+
+    DbfChannelReader(FileChannel channel, DbfHeader dbfHeader, boolean mapped) {
+        this.channel = channel;
+        this.mapped = mapped;
+        this.firstRecordPosition = dbfHeader.getFirstRecordPosition();
+        this.lengthRecord = dbfHeader.getLengthRecord();
+        try {
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+        long amount = MAP_WINDOW_SIZE / lengthRecord;
+        if (amount == 0) {
+            amount = 1;
+        }
+        windowSize = amount * lengthRecord;
+    }
+
+    /**
+     * Returns first byte (deleted flag or end of file marker) of record.
+     *
+     * @param recNo record number (from zero)
+     * @return first byte of record or -1 if record is out of file
+     */
+    int readFlag(int recNo) {
+        long position = getRecordPosition(recNo);
+        if (position >= fileSize) {
+            return -1;
+        }
+        if (!mapped) {
+            flagBuffer.clear();
+            readFully(flagBuffer, position);
+            return flagBuffer.get(0) & 0xff;
+        }
+        mapWindow(position, 1);
+        return window.get((int) (position - windowPosition)) & 0xff;
+    }
+
+    /**
+     * Reads record into record buffer.
+     *
+     * @param recNo  record number (from zero)
+     * @param record record buffer
+     * @return false if file is ended before record end
+     */
+    boolean readRecord(int recNo, byte[] record) {
+        long position = getRecordPosition(recNo);
+        if (position + lengthRecord > fileSize) {
+            return false;
+        }
+        if (!mapped) {
+            if (recordBuffer == null || recordBuffer.array() != record) {
+                recordBuffer = ByteBuffer.wrap(record, 0, lengthRecord);
+            }
+            recordBuffer.clear();
+            readFully(recordBuffer, position);
+            return true;
+        }
+        mapWindow(position, lengthRecord);
+        int recordPosition = (int) (position - windowPosition);
+        if (projection == null) {
+            window.position(recordPosition);
+            window.get(record, 0, lengthRecord);
+        } else {
+            for (int run = 0; run < projection.getRunCount(); run++) {
+                window.position(recordPosition + projection.getRunOffset(run));
+                window.get(record, projection.getRunOffset(run), projection.getRunLength(run));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets projection. In memory mapped mode only projected columns are copied into record buffer.
+     * Positional reads take whole record by one call anyway.
+     */
+    void setProjection(DbfProjection projection) {
+        this.projection = projection;
+    }
+
+    long getRecordPosition(int recNo) {
+        return firstRecordPosition + (long) recNo * lengthRecord;
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) {
+        try {
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                int numRead = channel.read(buffer, pos);
+                if (numRead == -1) {
+                    throw new DbfEngineException(DbfConstants.EXCP_REC_UNEXP
+                            + (position - firstRecordPosition) / lengthRecord);
+                }
+                pos += numRead;
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    private void mapWindow(long position, int length) {
+        if (window != null && position >= windowPosition
+                && position + length <= windowPosition + window.capacity()) {
+            return;
+        }
+        long size = Math.min(windowSize, fileSize - position);
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowPosition = position;
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+}
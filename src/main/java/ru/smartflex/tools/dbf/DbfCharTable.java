@@ -0,0 +1,141 @@
+package ru.smartflex.tools.dbf;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precomputed tables of single-byte code page. Byte to char table is used for decoding of character fields
+ * and char to byte table is used for encoding of string values, so there is no charset lookup and no
+ * decoder per field. Values which consist of ASCII symbols only are handled without tables at all.
+ * <br>
+ * Tables are built once per charset. Multi-byte charsets (MS932, MS936 and so on) have no tables.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+final class DbfCharTable {
+
+    private static final int UNMAPPED = -1;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private static final ConcurrentMap<String, DbfCharTable> TABLES = new ConcurrentHashMap<String, DbfCharTable>();
+    private static final DbfCharTable NONE = new DbfCharTable();
+
+    private final char[] decodeTable;
+    private final short[] encodeTable;
+    private final boolean asciiCompatible;
+
+    private DbfCharTable() {
+        decodeTable = null;
+        encodeTable = null;
+        asciiCompatible = false;
+    }
+
+    private DbfCharTable(Charset charset) {
+        decodeTable = new char[256];
+        encodeTable = new short[Character.MAX_VALUE + 1];
+        Arrays.fill(encodeTable, (short) UNMAPPED);
+
+        byte[] oneByte = new byte[1];
+        boolean ascii = true;
+        for (int i = 0; i < decodeTable.length; i++) {
+            oneByte[0] = (byte) i;
+            String str = new String(oneByte, charset);
+            char ch = str.length() == 1 ? str.charAt(0) : REPLACEMENT;
+            decodeTable[i] = ch;
+            if (i < 0x80 && ch != i) {
+                ascii = false;
+            }
+            if (ch != REPLACEMENT && encodeTable[ch] == UNMAPPED) {
+                encodeTable[ch] = (short) i;
+            }
+        }
+        asciiCompatible = ascii;
+    }
+
+    /**
+     * Returns tables of charset.
+     *
+     * @param charsetName charset name
+     * @return tables or null if charset is not single-byte one or it is not supported
+     */
+    static DbfCharTable forCharset(String charsetName) {
+        if (charsetName == null) {
+            return null;
+        }
+        DbfCharTable table = TABLES.get(charsetName);
+        if (table == null) {
+            table = create(charsetName);
+            DbfCharTable prev = TABLES.putIfAbsent(charsetName, table);
+            if (prev != null) {
+                table = prev;
+            }
+        }
+        return table == NONE ? null : table;
+    }
+
+    private static DbfCharTable create(String charsetName) {
+        Charset charset;
+        try {
+            charset = Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f
+                || charset.newDecoder().maxCharsPerByte() != 1.0f) {
+            return NONE;
+        }
+        return new DbfCharTable(charset);
+    }
+
+    /**
+     * Decodes bytes into string.
+     */
+    String decode(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        if (asciiCompatible) {
+            int i = offset;
+            while (i < end && bytes[i] >= 0) {
+                i++;
+            }
+            if (i == end) {
+                return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+            }
+        }
+        char[] chars = new char[length];
+        for (int i = offset, k = 0; i < end; i++, k++) {
+            chars[k] = decodeTable[bytes[i] & 0xff];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes bytes into char buffer.
+     */
+    void decode(byte[] bytes, int offset, int length, char[] chars, int charOffset) {
+        for (int i = offset, k = charOffset; i < offset + length; i++, k++) {
+            chars[k] = decodeTable[bytes[i] & 0xff];
+        }
+    }
+
+    /**
+     * Encodes string into bytes.
+     *
+     * @return bytes or null if string has symbols absent in code page
+     */
+    byte[] encode(String value) {
+        int length = value.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            short b = encodeTable[value.charAt(i)];
+            if (b == UNMAPPED) {
+                return null;
+            }
+            bytes[i] = (byte) b;
+        }
+        return bytes;
+    }
+}
@@ -46,6 +46,16 @@ public enum DbfCodePages {
         return charsetName;
     }
 
+    /**
+     * Returns precomputed tables of code page.
+     *
+     * @return tables or null for multi-byte code page
+     * @since 1.13
+     */
+    DbfCharTable getCharTable() {
+        return DbfCharTable.forCharset(charsetName);
+    }
+
     protected static DbfCodePages getByDbfCode(int code) {
         DbfCodePages dcp = null;
 
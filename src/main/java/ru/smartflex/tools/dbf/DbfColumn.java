@@ -14,14 +14,39 @@ public class DbfColumn {
     private DbfHeader dbfHeader = null;
     private DbfColumnPosition dbfColumnPosition = null;
     private DbfColumnTypes dbfColumnType = null;
+    private int columnIndex = -1;
+    private int fieldFlags = 0;
+
+    private static final int MEMO_BLOCK_LENGTH = 10;
+    private static final int BINARY_MEMO_BLOCK_LENGTH = 4;
+    private static final int CURRENCY_DEC = 4;
+
+    static final String NULL_FLAGS_NAME = "_NULLFLAGS";
+    static final int FLAG_SYSTEM = 0x01;
+    static final int FLAG_NULLABLE = 0x02;
+    static final int FLAG_BINARY = 0x04;
 
     DbfColumn(DbfHeader dbfHeader) {
         this.dbfHeader = dbfHeader;
     }
 
+    /**
+     * Creates copy of column for other header. Offset of column is not copied.
+     */
+    DbfColumn(DbfColumn column) {
+        this.originalType = column.originalType;
+        this.columnName = column.columnName;
+        this.dbfColumnType = column.dbfColumnType;
+        this.fieldFlags = column.fieldFlags;
+        this.dbfColumnPosition = new DbfColumnPosition(column.dbfColumnPosition.getColumnLength(),
+                column.dbfColumnPosition.getColumnDotAmount());
+        this.dbfColumnPosition.setBinaryType(column.dbfColumnPosition.getBinaryType());
+    }
+
     /**
      * Constructs a newly allocated <code>DbfColumn</code> object that
-     * represents xBase field.
+     * represents xBase field. Width of date, logical and binary Visual Foxpro fields is fixed. Memo field
+     * of width 4 keeps number of block as binary integer (as Visual Foxpro does).
      *
      * @param columnName    column name
      * @param dbfColumnType enumeration for column type
@@ -64,9 +89,92 @@ public class DbfColumn {
                 throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUMDECLEN);
             }
             dbfColumnPosition = new DbfColumnPosition(width, dec);
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.Memo) == 0
+                || dbfColumnType.compareTo(DbfColumnTypes.General) == 0) {
+            // number of memo block
+            dbfColumnPosition = new DbfColumnPosition(width == BINARY_MEMO_BLOCK_LENGTH
+                    ? BINARY_MEMO_BLOCK_LENGTH : MEMO_BLOCK_LENGTH, 0);
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.Integer) == 0
+                || dbfColumnType.compareTo(DbfColumnTypes.Blob) == 0) {
+            dbfColumnPosition = new DbfColumnPosition(4, 0);
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.Double) == 0) {
+            // dec is used for display only
+            dbfColumnPosition = new DbfColumnPosition(8, Math.max(0, dec));
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.Currency) == 0) {
+            dbfColumnPosition = new DbfColumnPosition(8, CURRENCY_DEC);
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.DateTime) == 0) {
+            dbfColumnPosition = new DbfColumnPosition(8, 0);
+        } else if (dbfColumnType.compareTo(DbfColumnTypes.Varchar) == 0
+                || dbfColumnType.compareTo(DbfColumnTypes.Varbinary) == 0) {
+            if (dec > 0) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NODEC);
+            }
+            if (width <= 0 || width > DbfConstants.DBF_COLUMN_CHAR_MAX_LEN) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CHARLEN);
+            }
+            dbfColumnPosition = new DbfColumnPosition(width, 0);
+        }
+        markBinary();
+    }
+
+    private void markBinary() {
+        if (dbfColumnType != null && isBinary()) {
+            dbfColumnPosition.setBinaryType(dbfColumnType);
         }
     }
 
+    /**
+     * Creates hidden <code>_NullFlags</code> field of Visual Foxpro.
+     *
+     * @param width count of bytes of bits
+     */
+    static DbfColumn nullFlags(int width) {
+        DbfColumn column = new DbfColumn((DbfHeader) null);
+        column.columnName = NULL_FLAGS_NAME;
+        column.originalType = DbfColumnTypes.NullFlags.getColumnType();
+        column.dbfColumnType = DbfColumnTypes.NullFlags;
+        column.fieldFlags = FLAG_SYSTEM | FLAG_BINARY;
+        column.dbfColumnPosition = new DbfColumnPosition(width, 0);
+        column.markBinary();
+        return column;
+    }
+
+    /**
+     * Allows null value of field (Visual Foxpro). Null values are kept in hidden <code>_NullFlags</code> field
+     * which is added by {@link DbfAppender#defineColumns(DbfColumn...)}.
+     *
+     * @param nullable <code>true</code> if field is nullable
+     * @since 1.13
+     */
+    public void setNullable(boolean nullable) {
+        if (nullable) {
+            fieldFlags |= FLAG_NULLABLE;
+        } else {
+            fieldFlags &= ~FLAG_NULLABLE;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if field is nullable (Visual Foxpro).
+     *
+     * @return <code>true</code> if field is nullable
+     * @since 1.13
+     */
+    public boolean isNullable() {
+        return (fieldFlags & FLAG_NULLABLE) != 0;
+    }
+
+    /**
+     * Returns <code>true</code> if value of field has variable length (varchar and varbinary of Visual Foxpro).
+     */
+    boolean isVarLength() {
+        return dbfColumnType == DbfColumnTypes.Varchar || dbfColumnType == DbfColumnTypes.Varbinary;
+    }
+
+    int getFieldFlags() {
+        return fieldFlags;
+    }
+
     /**
      * Returns type of column.
      *
@@ -88,6 +196,10 @@ public class DbfColumn {
         dbfHeader.setCurrentOffset(offset + columnLength);
 
         int columnDotAmount = recField[17] & 0xff;
+        // field flags of Visual Foxpro, other formats keep reserved byte here
+        if (dbfHeader.isVisualFoxPro()) {
+            fieldFlags = recField[18] & 0xff;
+        }
         for (int i = 0; i <= 10; i++) {
             if (recField[i] == 0) {
                 // 08.01.2020 fix case for dbf in Shapefile which has columns in lower case; git:frankvdh
@@ -99,6 +211,7 @@ public class DbfColumn {
                 columnDotAmount);
 
         dbfColumnType = DbfColumnTypes.Character.getByOriginalType(originalType);
+        markBinary();
     }
 
     /**
@@ -111,6 +224,16 @@ public class DbfColumn {
         return columnName;
     }
 
+    /**
+     * Returns <code>true</code> if value is kept as binary (Visual Foxpro types and memo of 4 bytes).
+     */
+    boolean isBinary() {
+        if (dbfColumnType == DbfColumnTypes.Memo || dbfColumnType == DbfColumnTypes.General) {
+            return dbfColumnPosition.getColumnLength() == BINARY_MEMO_BLOCK_LENGTH;
+        }
+        return dbfColumnType.isBinary();
+    }
+
     DbfColumnPosition getDbfColumnPosition() {
         return dbfColumnPosition;
     }
@@ -119,6 +242,14 @@ public class DbfColumn {
         return originalType;
     }
 
+    int getColumnIndex() {
+        return columnIndex;
+    }
+
+    void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
     /**
      * toString method
      *
@@ -10,6 +10,11 @@ public class DbfColumnPosition {
     private int offset = -1;
     private int columnLength;
     private int columnDotAmount;
+    private DbfColumnTypes binaryType = null;
+    private int nullByte = -1;
+    private byte nullMask = 0;
+    private int varLengthByte = -1;
+    private byte varLengthMask = 0;
 
     DbfColumnPosition(int offset, int columnLength,
                                 int columnDotAmount) {
@@ -41,6 +46,57 @@ public class DbfColumnPosition {
         return columnDotAmount;
     }
 
+    /**
+     * Returns type of field which value is kept as binary, or <code>null</code> for text field.
+     *
+     * @since 1.13
+     */
+    DbfColumnTypes getBinaryType() {
+        return binaryType;
+    }
+
+    void setBinaryType(DbfColumnTypes binaryType) {
+        this.binaryType = binaryType;
+    }
+
+    /**
+     * Returns offset in record of byte of <code>_NullFlags</code> field which keeps null bit of field,
+     * or -1 if field is not nullable.
+     *
+     * @since 1.13
+     */
+    int getNullByte() {
+        return nullByte;
+    }
+
+    byte getNullMask() {
+        return nullMask;
+    }
+
+    void setNullBit(int nullByte, byte nullMask) {
+        this.nullByte = nullByte;
+        this.nullMask = nullMask;
+    }
+
+    /**
+     * Returns offset in record of byte of <code>_NullFlags</code> field which keeps bit of varchar (varbinary)
+     * value shorter than field, or -1 if field has not variable length.
+     *
+     * @since 1.13
+     */
+    int getVarLengthByte() {
+        return varLengthByte;
+    }
+
+    byte getVarLengthMask() {
+        return varLengthMask;
+    }
+
+    void setVarLengthBit(int varLengthByte, byte varLengthMask) {
+        this.varLengthByte = varLengthByte;
+        this.varLengthMask = varLengthMask;
+    }
+
     /**
      * toString method
      *
@@ -8,18 +8,61 @@ package ru.smartflex.tools.dbf;
  */
 public enum DbfColumnTypes {
     Character("C"), Numeric("N"), Float("F"), Date("D"), Logical("L"), General(
-            "G"), Memo("M");
+            "G"), Memo("M"),
+    /**
+     * Visual Foxpro types (since 1.13): values of them (except varchar) are kept as little-endian binary.
+     */
+    Integer("I", true), Double("B", true), Currency("Y", true), DateTime("T", true),
+    Varchar("V"), Varbinary("Q", true), Blob("W", true),
+    /**
+     * Hidden system field <code>_NullFlags</code> of Visual Foxpro: bits of null values and bits of
+     * varchar (varbinary) values which are shorter than field (since 1.13).
+     */
+    NullFlags("0", true);
 
     private String columnType;
+    private boolean binary;
 
     DbfColumnTypes(String columnType) {
+        this(columnType, false);
+    }
+
+    DbfColumnTypes(String columnType, boolean binary) {
         this.columnType = columnType;
+        this.binary = binary;
     }
 
     protected String getColumnType() {
         return columnType;
     }
 
+    /**
+     * Returns <code>true</code> if value is kept as binary, so empty field is filled by zeros, not by spaces.
+     *
+     * @since 1.13
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Returns <code>true</code> if type is known by Visual Foxpro only.
+     *
+     * @since 1.13
+     */
+    boolean isVisualFoxPro() {
+        return compareTo(Integer) >= 0;
+    }
+
+    /**
+     * Returns <code>true</code> if value is kept in memo file and field keeps number of its first block.
+     *
+     * @since 1.13
+     */
+    boolean isMemo() {
+        return this == Memo || this == General || this == Blob;
+    }
+
     /**
      * Returns dbf column type.
      *
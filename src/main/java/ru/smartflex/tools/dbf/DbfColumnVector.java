@@ -0,0 +1,396 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * The class <code>DbfColumnVector</code> holds values of one column for all records of {@link DbfRecordBatch}.
+ * Values are kept in primitive arrays:
+ * <ul>
+ * <li>numeric column without decimals and integer column - <code>long[]</code>;</li>
+ * <li>numeric column with decimals, float, double and currency columns - <code>double[]</code>;</li>
+ * <li>date column - <code>int[]</code> of days from 1970-01-01 (as LocalDate.toEpochDay);</li>
+ * <li>logical column - bit set;</li>
+ * <li>character column - one char buffer with offsets of values.</li>
+ * </ul>
+ * Binary fields of Visual Foxpro are decoded directly from little-endian bytes, they are never empty.
+ * Empty fields are marked in bit set of nulls. For nullable field of Visual Foxpro the bit set is filled by null
+ * bits of <code>_NullFlags</code> field instead, so empty value is not null. Arrays are reused by the next batch, their length may be greater than
+ * count of records of batch.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+public class DbfColumnVector {
+
+    private DbfColumn column;
+    private DbfColumnPosition dbfColumnPos;
+    private DbfCharTable charTable;
+    private String codePage;
+    private DbfNumber number = new DbfNumber();
+
+    private BitSet nulls = new BitSet();
+    private long[] longs;
+    private double[] doubles;
+    private int[] epochDays;
+    private BitSet booleans;
+    private char[] chars;
+    private int[] offsets;
+
+    DbfColumnVector(DbfColumn column, DbfHeader dbfHeader) {
+        this.column = column;
+        this.dbfColumnPos = column.getDbfColumnPosition();
+        this.codePage = dbfHeader.getCodePage();
+        if (dbfHeader.getDbfCodePages() != null) {
+            charTable = dbfHeader.getDbfCodePages().getCharTable();
+        }
+    }
+
+    static boolean isSupported(DbfColumn column) {
+        DbfColumnTypes type = column.getDbfColumnType();
+        return type == DbfColumnTypes.Numeric || type == DbfColumnTypes.Float
+                || type == DbfColumnTypes.Date || type == DbfColumnTypes.Logical
+                || type == DbfColumnTypes.Character || type == DbfColumnTypes.Integer
+                || type == DbfColumnTypes.Double || type == DbfColumnTypes.Currency;
+    }
+
+    /**
+     * Decodes column of records.
+     *
+     * @param block         buffer with records
+     * @param rows          count of records in buffer
+     * @param lengthRecord  record length
+     * @param recordNumbers numbers of records (for error messages)
+     */
+    void decode(byte[] block, int rows, int lengthRecord, int[] recordNumbers) {
+        nulls.clear();
+        switch (column.getDbfColumnType()) {
+            case Numeric:
+                if (dbfColumnPos.getColumnDotAmount() == 0) {
+                    decodeLongs(block, rows, lengthRecord, recordNumbers);
+                } else {
+                    decodeDoubles(block, rows, lengthRecord, recordNumbers);
+                }
+                break;
+            case Float:
+                decodeDoubles(block, rows, lengthRecord, recordNumbers);
+                break;
+            case Date:
+                decodeDates(block, rows, lengthRecord, recordNumbers);
+                break;
+            case Logical:
+                decodeBooleans(block, rows, lengthRecord);
+                break;
+            case Character:
+                decodeChars(block, rows, lengthRecord);
+                break;
+            case Integer:
+                decodeIntegers(block, rows, lengthRecord);
+                break;
+            case Double:
+            case Currency:
+                decodeBinaryDoubles(block, rows, lengthRecord);
+                break;
+            default:
+                break;
+        }
+        if (dbfColumnPos.getNullByte() >= 0) {
+            decodeNullBits(block, rows, lengthRecord);
+        }
+    }
+
+    private void decodeNullBits(byte[] block, int rows, int lengthRecord) {
+        nulls.clear();
+        int nullByte = dbfColumnPos.getNullByte();
+        byte nullMask = dbfColumnPos.getNullMask();
+        for (int row = 0; row < rows; row++, nullByte += lengthRecord) {
+            if ((block[nullByte] & nullMask) != 0) {
+                nulls.set(row);
+            }
+        }
+    }
+
+    private void decodeLongs(byte[] block, int rows, int lengthRecord, int[] recordNumbers) {
+        if (longs == null || longs.length < rows) {
+            longs = new long[rows];
+        }
+        int offset = dbfColumnPos.getOffset();
+        int length = dbfColumnPos.getColumnLength();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            int status = number.parse(block, offset, length, true);
+            if (status == DbfNumber.EMPTY) {
+                longs[row] = 0;
+                nulls.set(row);
+            } else if (status == DbfNumber.PARSED && number.isIntegral()) {
+                longs[row] = number.longValue();
+            } else {
+                longs[row] = parseLong(block, offset, length, recordNumbers[row]);
+            }
+        }
+    }
+
+    private void decodeDoubles(byte[] block, int rows, int lengthRecord, int[] recordNumbers) {
+        if (doubles == null || doubles.length < rows) {
+            doubles = new double[rows];
+        }
+        int offset = dbfColumnPos.getOffset();
+        int length = dbfColumnPos.getColumnLength();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            int status = number.parse(block, offset, length, true);
+            if (status == DbfNumber.EMPTY) {
+                doubles[row] = 0;
+                nulls.set(row);
+            } else if (status == DbfNumber.PARSED && number.isExactDouble()) {
+                doubles[row] = number.doubleValue();
+            } else {
+                doubles[row] = parseDouble(block, offset, length, recordNumbers[row]);
+            }
+        }
+    }
+
+    private void decodeIntegers(byte[] block, int rows, int lengthRecord) {
+        if (longs == null || longs.length < rows) {
+            longs = new long[rows];
+        }
+        int offset = dbfColumnPos.getOffset();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            longs[row] = DbfHelper.readIntLE(block, offset);
+        }
+    }
+
+    private void decodeBinaryDoubles(byte[] block, int rows, int lengthRecord) {
+        if (doubles == null || doubles.length < rows) {
+            doubles = new double[rows];
+        }
+        boolean currency = column.getDbfColumnType() == DbfColumnTypes.Currency;
+        int offset = dbfColumnPos.getOffset();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            long bits = DbfHelper.readLongLE(block, offset);
+            doubles[row] = currency ? bits / 10000d : Double.longBitsToDouble(bits);
+        }
+    }
+
+    private long parseLong(byte[] block, int offset, int length, int recNo) {
+        String str = new String(block, offset, length, StandardCharsets.ISO_8859_1).trim();
+        try {
+            return new BigDecimal(str.replace(",", "").replace("'", "")).longValue();
+        } catch (NumberFormatException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM + ": "
+                    + str + DbfConstants.EXCP_CURR_REC_INFO + recNo);
+        }
+    }
+
+    private double parseDouble(byte[] block, int offset, int length, int recNo) {
+        String str = new String(block, offset, length, StandardCharsets.ISO_8859_1).trim();
+        try {
+            return Double.parseDouble(str.replace(",", "").replace("'", ""));
+        } catch (NumberFormatException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM + ": "
+                    + str + DbfConstants.EXCP_CURR_REC_INFO + recNo);
+        }
+    }
+
+    private void decodeDates(byte[] block, int rows, int lengthRecord, int[] recordNumbers) {
+        if (epochDays == null || epochDays.length < rows) {
+            epochDays = new int[rows];
+        }
+        int offset = dbfColumnPos.getOffset();
+        int length = dbfColumnPos.getColumnLength();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            int value = DbfHelper.parseDate(block, offset, length);
+            if (value == 0) {
+                epochDays[row] = 0;
+                nulls.set(row);
+            } else if (value != DbfHelper.DATE_UNPARSED && DbfHelper.isValidDate(value)) {
+                epochDays[row] = DbfHelper.toEpochDay(value);
+            } else {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + ": "
+                        + new String(block, offset, length, StandardCharsets.ISO_8859_1)
+                        + DbfConstants.EXCP_CURR_REC_INFO + recordNumbers[row]);
+            }
+        }
+    }
+
+    private void decodeBooleans(byte[] block, int rows, int lengthRecord) {
+        if (booleans == null) {
+            booleans = new BitSet(rows);
+        }
+        booleans.clear();
+        int offset = dbfColumnPos.getOffset();
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            byte b = block[offset];
+            if (b == DbfConstants.LOGICAL_TRUE) {
+                booleans.set(row);
+            } else if (b == DbfConstants.DBF_REC_FILLSYMB || b == 0 || b == '?') {
+                nulls.set(row);
+            }
+        }
+    }
+
+    private void decodeChars(byte[] block, int rows, int lengthRecord) {
+        int length = dbfColumnPos.getColumnLength();
+        if (offsets == null || offsets.length < rows + 1) {
+            offsets = new int[rows + 1];
+        }
+        if (chars == null || chars.length < rows * length) {
+            chars = new char[rows * length];
+        }
+        int offset = dbfColumnPos.getOffset();
+        int charOffset = 0;
+        for (int row = 0; row < rows; row++, offset += lengthRecord) {
+            offsets[row] = charOffset;
+            int last = offset + length - 1;
+            while (last >= offset && (block[last] == DbfConstants.DBF_REC_FILLSYMB || block[last] == 0)) {
+                last--;
+            }
+            int count = last - offset + 1;
+            if (count == 0) {
+                nulls.set(row);
+                continue;
+            }
+            if (charTable != null) {
+                charTable.decode(block, offset, count, chars, charOffset);
+            } else {
+                count = decodeString(block, offset, count, charOffset);
+            }
+            if (isBlank(charOffset, count)) {
+                nulls.set(row);
+            } else {
+                charOffset += count;
+            }
+        }
+        offsets[rows] = charOffset;
+    }
+
+    private int decodeString(byte[] block, int offset, int count, int charOffset) {
+        try {
+            String str = new String(block, offset, count, codePage);
+            str.getChars(0, str.length(), chars, charOffset);
+            return str.length();
+        } catch (UnsupportedEncodingException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP);
+        }
+    }
+
+    private boolean isBlank(int charOffset, int count) {
+        for (int i = charOffset; i < charOffset + count; i++) {
+            if (chars[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns column of vector.
+     *
+     * @return column
+     */
+    public DbfColumn getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns <code>true</code> if field of record is empty.
+     *
+     * @param row record index in batch
+     * @return <code>true</code> if field is empty
+     */
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * Returns bit set of empty fields.
+     *
+     * @return bit set where bit is set for empty field
+     */
+    public BitSet getNulls() {
+        return nulls;
+    }
+
+    /**
+     * Returns values of numeric column without decimals or integer column. Empty fields are zero.
+     *
+     * @return array of values
+     */
+    public long[] getLongs() {
+        checkVector(longs);
+        return longs;
+    }
+
+    /**
+     * Returns values of numeric column with decimals, float, double or currency column. Empty fields are zero.
+     *
+     * @return array of values
+     */
+    public double[] getDoubles() {
+        checkVector(doubles);
+        return doubles;
+    }
+
+    /**
+     * Returns values of date column as days from 1970-01-01. Empty fields are zero, so they have to be checked
+     * by {@link #isNull(int)}.
+     *
+     * @return array of values
+     */
+    public int[] getEpochDays() {
+        checkVector(epochDays);
+        return epochDays;
+    }
+
+    /**
+     * Returns values of logical column.
+     *
+     * @return bit set where bit is set for true value
+     */
+    public BitSet getBooleans() {
+        checkVector(booleans);
+        return booleans;
+    }
+
+    /**
+     * Returns char buffer of character column. Value of record <code>row</code> is placed from
+     * <code>getOffsets()[row]</code> to <code>getOffsets()[row + 1]</code>.
+     *
+     * @return char buffer
+     */
+    public char[] getChars() {
+        checkVector(chars);
+        return chars;
+    }
+
+    /**
+     * Returns offsets of values of character column in char buffer. Array has one more element than count of records.
+     *
+     * @return offsets of values
+     */
+    public int[] getOffsets() {
+        checkVector(offsets);
+        return offsets;
+    }
+
+    /**
+     * Returns value of character column as string.
+     *
+     * @param row record index in batch
+     * @return string or null for empty field
+     */
+    public String getString(int row) {
+        checkVector(offsets);
+        if (nulls.get(row)) {
+            return null;
+        }
+        return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+    }
+
+    private void checkVector(Object vector) {
+        if (vector == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
+                    + column.getColumnName());
+        }
+    }
+}
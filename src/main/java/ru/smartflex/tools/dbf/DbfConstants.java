@@ -27,6 +27,24 @@ public interface DbfConstants {
     String EXCP_DBF_ERR_CREATE = "Error with file creating";
     String EXCP_CURR_REC_INFO = " on record: ";
     String EXCP_DBF_NOT_EXISTS = "File is not existed";
+    String EXCP_RANDOM_ACCESS = "Random access is allowed for dbf file only, not for stream";
+    String EXCP_REC_NUMBER = "Record number is out of range: ";
+    String EXCP_PARALLEL_SCAN = "Error with parallel scan of dbf";
+    String EXCP_COLUMN_NOT_PROJECTED = "Field is not projected: ";
+    String EXCP_FILTER_OP = "Operator is not allowed for field: ";
+    String EXCP_FILTER_VALUE = "Value type mismatch in filter for field: ";
+    String EXCP_BATCH_SIZE = "Size of batch must be positive: ";
+    String EXCP_PARALLEL_INSERT = "Error with parallel insert into dbf";
+    String EXCP_DBF_STRUCTURE = "Structure of dbf files is different: ";
+    String EXCP_DBF_NO_SOURCE = "There were no source dbf files";
+    String EXCP_DBF_COPY_MEMO = "Copy of dbf file with memo fields is not supported: ";
+    String EXCP_INSERT_NOT_ALLOWED = "Insert is not allowed for statement of updater";
+    String EXCP_UPDATER_CLOSED = "Updater is closed";
+    String EXCP_MEMO_MISSED = "Memo file is not found for field: ";
+    String EXCP_MEMO_FORMAT = "Error with format of memo file";
+    String EXCP_MEMO_NOT_ALLOWED = "Memo is written into dbf file only, not into stream";
+    String EXCP_COLUMN_NOT_NULLABLE = "Field is not nullable: ";
+    String EXCP_COLUMN_NULL_FLAGS = "Field _NullFlags is too short";
     String EXCP_DEF_COLS_NOT_ALLOWED = "Define columns is not allowed for append mode of existed file";
 
     String EXCP_COLUMN_ADD = "There were no column added";
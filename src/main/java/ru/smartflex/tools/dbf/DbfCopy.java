@@ -0,0 +1,233 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copies records of dbf files of the same structure into new dbf file. Header is copied as is, and records
+ * are moved by <code>FileChannel.transferTo</code>, so the kernel copies them without user space buffers.
+ * If filter is defined then records are read by blocks and matched records are copied one by one.
+ * Contiguous range of records of one file is moved by <code>transferTo</code> too.
+ * Block numbers of memo fields would point to memo file which is not copied (and memos of several files would
+ * collide), so dbf files with memo fields are rejected.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfCopy {
+
+    static final int COPY_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int TYPE_POSITION = 0;
+    private static final int CODE_PAGE_POSITION = 29;
+
+    private File dstFile;
+    private DbfFilter filter;
+    private int firstRecord = 0;
+    private int countRecords = -1;
+
+    DbfCopy(File dstFile, DbfFilter filter) {
+        if (dstFile.exists()) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_EXISTS);
+        }
+        this.dstFile = dstFile;
+        this.filter = filter;
+    }
+
+    /**
+     * Constructor for copy of contiguous range of records.
+     *
+     * @param dstFile      new dbf file
+     * @param firstRecord  number of first record, starting from zero
+     * @param countRecords count of records
+     */
+    DbfCopy(File dstFile, int firstRecord, int countRecords) {
+        this(dstFile, null);
+        if (firstRecord < 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_REC_NUMBER + firstRecord);
+        }
+        if (countRecords < 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_REC_NUMBER + countRecords);
+        }
+        this.firstRecord = firstRecord;
+        this.countRecords = countRecords;
+    }
+
+    /**
+     * Copies records of source files one after another.
+     *
+     * @return count of copied records
+     */
+    int copy(File... srcFiles) {
+        if (srcFiles.length == 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NO_SOURCE);
+        }
+        List<DbfIterator> iterators = new ArrayList<DbfIterator>(srcFiles.length);
+        FileOutputStream dstStream = null;
+        try {
+            byte[] header = null;
+            for (File srcFile : srcFiles) {
+                if (!srcFile.exists()) {
+                    throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS);
+                }
+                DbfIterator dbfIterator = new DbfIterator(srcFile, null);
+                iterators.add(dbfIterator);
+                if (dbfIterator.getDbfHeader().hasMemoColumns()) {
+                    throw new DbfEngineException(DbfConstants.EXCP_DBF_COPY_MEMO + srcFile.getName());
+                }
+                checkRange(dbfIterator.getDbfHeader());
+                byte[] srcHeader = readHeader(dbfIterator.getDbfHeader());
+                if (header == null) {
+                    header = srcHeader;
+                } else if (!sameStructure(header, srcHeader)) {
+                    throw new DbfEngineException(DbfConstants.EXCP_DBF_STRUCTURE + srcFile.getName());
+                }
+            }
+
+            dstStream = new FileOutputStream(dstFile);
+            FileChannel dst = dstStream.getChannel();
+            writeFully(dst, ByteBuffer.wrap(header));
+
+            int totalRecords = 0;
+            for (DbfIterator dbfIterator : iterators) {
+                if (filter == null) {
+                    totalRecords += transferRecords(dbfIterator.getDbfHeader(), dst);
+                } else {
+                    totalRecords += copyMatchedRecords(dbfIterator.getDbfHeader(), dst);
+                }
+            }
+            writeFully(dst, ByteBuffer.wrap(new byte[]{DbfConstants.DBF_END_OF_FILE}));
+
+            byte[] dateAndCount = new byte[7];
+            DbfAppender.fillDateAndCount(dateAndCount, 0, totalRecords);
+            ByteBuffer buffer = ByteBuffer.wrap(dateAndCount);
+            long position = 1;
+            while (buffer.hasRemaining()) {
+                position += dst.write(buffer, position);
+            }
+            return totalRecords;
+        } catch (FileNotFoundException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_ERR_CREATE, e);
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } finally {
+            for (DbfIterator dbfIterator : iterators) {
+                dbfIterator.closeIterator();
+            }
+            if (dstStream != null) {
+                try {
+                    dstStream.close();
+                } catch (IOException e) {
+                    // nothing to do
+                }
+            }
+        }
+    }
+
+    private static FileChannel getChannel(DbfHeader dbfHeader) {
+        return ((FileInputStream) dbfHeader.getDbfStream()).getChannel();
+    }
+
+    private static byte[] readHeader(DbfHeader dbfHeader) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(dbfHeader.getFirstRecordPosition());
+        readFully(getChannel(dbfHeader), buffer, 0);
+        return buffer.array();
+    }
+
+    private void checkRange(DbfHeader dbfHeader) {
+        if (countRecords >= 0 && (long) firstRecord + countRecords > dbfHeader.getCountRecords()) {
+            throw new DbfEngineException(DbfConstants.EXCP_REC_NUMBER + (firstRecord + countRecords));
+        }
+    }
+
+    /**
+     * Compares type of file, code page, record length and descriptors of columns. Text of file with other
+     * code page would be decoded wrongly by code page of the first file.
+     */
+    private static boolean sameStructure(byte[] header, byte[] srcHeader) {
+        if (header.length != srcHeader.length || header[10] != srcHeader[10] || header[11] != srcHeader[11]
+                || header[TYPE_POSITION] != srcHeader[TYPE_POSITION]
+                || header[CODE_PAGE_POSITION] != srcHeader[CODE_PAGE_POSITION]) {
+            return false;
+        }
+        return Arrays.equals(Arrays.copyOfRange(header, DbfConstants.DBF_HEADER_LENGTH, header.length),
+                Arrays.copyOfRange(srcHeader, DbfConstants.DBF_HEADER_LENGTH, srcHeader.length));
+    }
+
+    private int transferRecords(DbfHeader dbfHeader, FileChannel dst) throws IOException {
+        FileChannel src = getChannel(dbfHeader);
+        int records = countRecords < 0 ? dbfHeader.getCountRecords() : countRecords;
+        long position = dbfHeader.getFirstRecordPosition() + (long) firstRecord * dbfHeader.getLengthRecord();
+        long count = (long) records * dbfHeader.getLengthRecord();
+        while (count > 0) {
+            long transferred = src.transferTo(position, count, dst);
+            if (transferred <= 0) {
+                throw new DbfEngineException(DbfConstants.EXCP_REC_UNEXP
+                        + (position - dbfHeader.getFirstRecordPosition()) / dbfHeader.getLengthRecord());
+            }
+            position += transferred;
+            count -= transferred;
+        }
+        return records;
+    }
+
+    private int copyMatchedRecords(DbfHeader dbfHeader, FileChannel dst) throws IOException {
+        FileChannel src = getChannel(dbfHeader);
+        DbfFilter.Predicate predicate = filter.compile(dbfHeader);
+        int lengthRecord = dbfHeader.getLengthRecord();
+        int blockRecords = Math.max(1, COPY_BLOCK_SIZE / lengthRecord);
+        ByteBuffer in = ByteBuffer.allocate(blockRecords * lengthRecord);
+        ByteBuffer out = ByteBuffer.allocate(blockRecords * lengthRecord);
+        byte[] record = new byte[lengthRecord];
+
+        int countRecords = dbfHeader.getCountRecords();
+        int matched = 0;
+        for (int first = 0; first < countRecords; first += blockRecords) {
+            int rows = Math.min(blockRecords, countRecords - first);
+            in.clear();
+            in.limit(rows * lengthRecord);
+            if (!readFully(src, in, dbfHeader.getFirstRecordPosition() + (long) first * lengthRecord)) {
+                throw new DbfEngineException(DbfConstants.EXCP_REC_UNEXP + first);
+            }
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(in.array(), row * lengthRecord, record, 0, lengthRecord);
+                if (predicate.test(record)) {
+                    out.put(record);
+                    matched++;
+                }
+            }
+            if (out.position() > 0) {
+                out.flip();
+                writeFully(dst, out);
+                out.clear();
+            }
+        }
+        return matched;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int numRead = channel.read(buffer, pos);
+            if (numRead == -1) {
+                return false;
+            }
+            pos += numRead;
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package ru.smartflex.tools.dbf;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The <b>main class</b> that supplies iterators and appenders - start here. <br>
@@ -186,6 +191,105 @@ public class DbfEngine {
         return new DbfIterator(dbfFile, enc);
     }
 
+    /**
+     * Gets DBF iterator which reads records through memory mapped file.
+     * Records are taken straight from page cache without system call per record, so it is the fastest way for scanning of big files.
+     *
+     * @param dbfFileName dbf file name
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @return dbf iterator
+     * @since 1.13
+     */
+    public static DbfIterator getMappedReader(String dbfFileName, String enc) {
+        File dbfFile = new File(dbfFileName);
+        return getMappedReader(dbfFile, enc);
+    }
+
+    /**
+     * Gets DBF iterator which reads records through memory mapped file.
+     * Records are taken straight from page cache without system call per record, so it is the fastest way for scanning of big files.
+     *
+     * @param dbfFile dbf file
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @return dbf iterator
+     * @since 1.13
+     */
+    public static DbfIterator getMappedReader(File dbfFile, String enc) {
+        return new DbfIterator(dbfFile, enc, true);
+    }
+
+    /**
+     * Scans DBF file in parallel. The file is split into ranges of records and every range is handled by own thread.
+     *
+     * @param dbfFile    dbf file
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @param partitions amount of ranges (and threads)
+     * @param handler    handler of range
+     * @param <T>        type of range result
+     * @return results of ranges in order of records
+     * @see DbfPartitionHandler
+     * @since 1.13
+     */
+    public static <T> List<T> scanParallel(File dbfFile, String enc, int partitions,
+                                           DbfPartitionHandler<T> handler) {
+        return new DbfParallelScan<T>(dbfFile, enc, partitions, handler).scan();
+    }
+
+    /**
+     * Gets stream of DBF records. The stream may be parallel: its spliterator splits records of file in halves
+     * and every split reads own records through positional reads of file channel.
+     * <br>
+     * Record object is reused inside of split, so records which are kept after processing have to be copied:
+     *
+     * <pre>
+     * try (Stream&lt;DbfRecord&gt; stream = DbfEngine.stream(dbfFile, null)) {
+     * 	List&lt;DbfRecord&gt; list = stream.parallel()
+     * 			.filter(r -&gt; !r.isDeleted())
+     * 			.map(DbfRecord::copyRecord)
+     * 			.collect(Collectors.toList());
+     * }
+     * </pre>
+     * The stream has to be closed for closing of dbf file.
+     * If names of columns are given then records have only these columns (see {@link DbfIterator#project(String...)}).
+     *
+     * @param dbfFile dbf file
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @param columnNames names of projected columns (all columns if they are missed)
+     * @return stream of records
+     * @since 1.13
+     */
+    public static Stream<DbfRecord> stream(File dbfFile, String enc, String... columnNames) {
+        final DbfIterator dbfIterator = new DbfIterator(dbfFile, enc);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        DbfProjection projection = null;
+        if (columnNames.length > 0) {
+            projection = new DbfProjection(dbfHeader, columnNames);
+        }
+        FileChannel channel = ((FileInputStream) dbfHeader.getDbfStream()).getChannel();
+        DbfRecordSpliterator spliterator = new DbfRecordSpliterator(dbfHeader, channel, 0,
+                dbfHeader.getCountRecords(), projection);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            public void run() {
+                dbfIterator.closeIterator();
+            }
+        });
+    }
+
+    /**
+     * Gets stream of DBF records.
+     *
+     * @param dbfFileName dbf file name
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @param columnNames names of projected columns (all columns if they are missed)
+     * @return stream of records
+     * @see #stream(File, String, String...)
+     * @since 1.13
+     */
+    public static Stream<DbfRecord> stream(String dbfFileName, String enc, String... columnNames) {
+        File dbfFile = new File(dbfFileName);
+        return stream(dbfFile, enc, columnNames);
+    }
+
     /**
      * Gets DBF iterator
      *
@@ -198,6 +302,39 @@ public class DbfEngine {
         return new DbfIterator(dbfStream, enc);
     }
 
+    /**
+     * Gets DBF iterator with asynchronous read-ahead. Background thread reads records by large blocks (about 1 Mb)
+     * while records of previous block are handled. It is useful for slow streams such as network shares and zip entries.
+     * The iterator has to be closed (or read to the end) for stopping of background thread.
+     *
+     * @param dbfStream input stream
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @return dbf iterator
+     * @since 1.13
+     */
+    public static DbfIterator getPrefetchReader(InputStream dbfStream, String enc) {
+        return new DbfIterator(dbfStream, enc, 0, DbfIterator.PREFETCH_BLOCK_COUNT);
+    }
+
+    /**
+     * Gets DBF iterator with asynchronous read-ahead.
+     *
+     * @param dbfStream        input stream
+     * @param enc              code page (see {@link #getReader(InputStream, String)})
+     * @param recordsPerBlock  count of records in block
+     * @param blockCount       count of blocks in ring of buffers (two at least)
+     * @return dbf iterator
+     * @see #getPrefetchReader(InputStream, String)
+     * @since 1.13
+     */
+    public static DbfIterator getPrefetchReader(InputStream dbfStream, String enc, int recordsPerBlock,
+                                                int blockCount) {
+        if (recordsPerBlock <= 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_BATCH_SIZE + recordsPerBlock);
+        }
+        return new DbfIterator(dbfStream, enc, recordsPerBlock, blockCount);
+    }
+
     /**
      * Gets DBF appender for a newly created file
      *
@@ -301,4 +438,95 @@ public class DbfEngine {
         return new DbfAppender(dbfFile, header);
     }
 
+    /**
+     * Copies dbf file into new file. If filter is missed then records are moved by kernel without user space
+     * buffers (<code>FileChannel.transferTo</code>), otherwise only matched records are copied.
+     * Header is copied as is, except record amount and date of last update. Dbf file with memo fields
+     * is not copied (DbfEngineException is thrown), because its memo file is not copied.
+     *
+     * @param srcFile source dbf file
+     * @param dstFile new dbf file
+     * @param filter  filter of records or <code>null</code> for all records
+     * @return count of copied records
+     * @since 1.13
+     */
+    public static int copy(File srcFile, File dstFile, DbfFilter filter) {
+        return new DbfCopy(dstFile, filter).copy(srcFile);
+    }
+
+    /**
+     * Copies contiguous range of records of dbf file into new file. Records are moved by kernel without user space
+     * buffers (<code>FileChannel.transferTo</code>). Dbf file with memo fields is not copied.
+     *
+     * @param srcFile      source dbf file
+     * @param dstFile      new dbf file
+     * @param firstRecord  number of first record, starting from zero
+     * @param countRecords count of records
+     * @return count of copied records
+     * @see #copy(File, File, DbfFilter)
+     * @since 1.13
+     */
+    public static int copy(File srcFile, File dstFile, int firstRecord, int countRecords) {
+        return new DbfCopy(dstFile, firstRecord, countRecords).copy(srcFile);
+    }
+
+    /**
+     * Concatenates dbf files of the same structure into new file. Type of files and code page have to be equal too.
+     * Dbf files with memo fields are not allowed.
+     *
+     * @param dstFile  new dbf file
+     * @param srcFiles source dbf files
+     * @return count of copied records
+     * @see #copy(File, File, DbfFilter)
+     * @since 1.13
+     */
+    public static int concat(File dstFile, File... srcFiles) {
+        return new DbfCopy(dstFile, null).copy(srcFiles);
+    }
+
+    /**
+     * Gets DBF updater for existed file. Records are changed in place.
+     *
+     * @param dbfFile dbf file
+     * @param enc If codepage parameter is missed (in other words == null) then it will be filled as Cp866. And this parameter will be used if in DBF header code page is unknown.
+     * @return dbf updater
+     * @since 1.13
+     */
+    public static DbfUpdater getUpdater(File dbfFile, String enc) {
+        if (!dbfFile.exists()) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS);
+        }
+        DbfIterator iter = new DbfIterator(dbfFile, enc);
+        DbfHeader header = iter.getDbfHeader();
+        iter.closeIterator();
+        return new DbfUpdater(dbfFile, header);
+    }
+
+    /**
+     * Removes records marked as deleted from dbf file (PACK command of xBase). Records are moved in place,
+     * so the file is damaged if packing is interrupted. If it is not acceptable then records can be copied
+     * into new file by {@link #copy(File, File, DbfFilter)} with {@link DbfFilter#notDeleted()} filter,
+     * and the new file can be renamed then.
+     *
+     * @param dbfFile dbf file
+     * @return count of removed records
+     * @since 1.13
+     */
+    public static int pack(File dbfFile) {
+        return new DbfPack(dbfFile).pack();
+    }
+
+    /**
+     * Removes unused blocks of memo file (PACK MEMO command of xBase). Memos referenced by records are copied
+     * into new memo file, block numbers of records are changed in place and then new memo file replaces old one.
+     * Only Foxpro memo files (.fpt) are supported.
+     *
+     * @param dbfFile dbf file
+     * @return count of copied memos
+     * @since 1.13
+     */
+    public static int packMemo(File dbfFile) {
+        return new DbfMemoPack(dbfFile).pack();
+    }
+
 }
@@ -0,0 +1,547 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * The class <code>DbfFilter</code> is a condition on records of dbf file. Condition is compiled once for dbf header
+ * into comparisons of raw bytes of record, so non-matching records are rejected without creation of String or
+ * BigDecimal objects:
+ * <ul>
+ * <li>character field is compared with value encoded by code page of file (order of bytes of code page is used);</li>
+ * <li>numeric and float fields are compared as unscaled long values;</li>
+ * <li>integer, currency and double fields of Visual Foxpro are compared as binary values;</li>
+ * <li>date field is compared as yyyymmdd int value;</li>
+ * <li>logical field is compared with value of getBoolean;</li>
+ * <li>deleted flag is checked by {@link #deleted()} and {@link #notDeleted()}.</li>
+ * </ul>
+ * Null value is allowed for EQ and NE operators, it means empty field. Empty field does not match any other
+ * comparison, except NE. For nullable field of Visual Foxpro null value means null bit of <code>_NullFlags</code>
+ * field.
+ *
+ * <pre>
+ * DbfIterator dbfIterator = DbfEngine.getReader(dbfFile, null)
+ * 		.where(DbfFilter.where(&quot;NAME&quot;, DbfOperator.STARTS_WITH, &quot;Hel&quot;)
+ * 				.or(DbfFilter.where(&quot;SUM_N&quot;, DbfOperator.GT, new BigDecimal(&quot;100&quot;)))
+ * 				.and(DbfFilter.notDeleted()));
+ * </pre>
+ *
+ * @author galisha
+ * @see DbfIterator#where(DbfFilter)
+ * @since 1.13
+ */
+public abstract class DbfFilter {
+
+    /**
+     * Compiled condition.
+     */
+    interface Predicate {
+        boolean test(byte[] record);
+    }
+
+    DbfFilter() {
+    }
+
+    /**
+     * Creates condition on field.
+     *
+     * @param colName  xBase field name
+     * @param operator comparison operator
+     * @param value    value: String for character field, Number for numeric and float fields, LocalDate, Date or
+     *                 yyyymmdd Integer for date field, Boolean for logical field
+     * @return condition
+     */
+    public static DbfFilter where(String colName, DbfOperator operator, Object value) {
+        return new ColumnFilter(colName, operator, value);
+    }
+
+    /**
+     * Creates condition matching deleted records.
+     *
+     * @return condition
+     */
+    public static DbfFilter deleted() {
+        return new DeletedFilter(true);
+    }
+
+    /**
+     * Creates condition matching non deleted records.
+     *
+     * @return condition
+     */
+    public static DbfFilter notDeleted() {
+        return new DeletedFilter(false);
+    }
+
+    /**
+     * Combines this condition and other one by AND.
+     *
+     * @param other other condition
+     * @return combined condition
+     */
+    public DbfFilter and(DbfFilter other) {
+        return new LogicalFilter(this, other, true);
+    }
+
+    /**
+     * Combines this condition and other one by OR.
+     *
+     * @param other other condition
+     * @return combined condition
+     */
+    public DbfFilter or(DbfFilter other) {
+        return new LogicalFilter(this, other, false);
+    }
+
+    abstract Predicate compile(DbfHeader dbfHeader);
+
+    /**
+     * Adds columns used by condition.
+     */
+    abstract void collectColumns(DbfHeader dbfHeader, Set<DbfColumn> columns);
+
+    private static class DeletedFilter extends DbfFilter {
+        private final boolean deleted;
+
+        DeletedFilter(boolean deleted) {
+            this.deleted = deleted;
+        }
+
+        @Override
+        Predicate compile(DbfHeader dbfHeader) {
+            return new Predicate() {
+                public boolean test(byte[] record) {
+                    return (record[0] == DbfConstants.DELETED_MARKER) == deleted;
+                }
+            };
+        }
+
+        @Override
+        void collectColumns(DbfHeader dbfHeader, Set<DbfColumn> columns) {
+            // deleted flag only
+        }
+    }
+
+    private static class LogicalFilter extends DbfFilter {
+        private final DbfFilter left;
+        private final DbfFilter right;
+        private final boolean and;
+
+        LogicalFilter(DbfFilter left, DbfFilter right, boolean and) {
+            this.left = left;
+            this.right = right;
+            this.and = and;
+        }
+
+        @Override
+        Predicate compile(DbfHeader dbfHeader) {
+            final Predicate l = left.compile(dbfHeader);
+            final Predicate r = right.compile(dbfHeader);
+            if (and) {
+                return new Predicate() {
+                    public boolean test(byte[] record) {
+                        return l.test(record) && r.test(record);
+                    }
+                };
+            }
+            return new Predicate() {
+                public boolean test(byte[] record) {
+                    return l.test(record) || r.test(record);
+                }
+            };
+        }
+
+        @Override
+        void collectColumns(DbfHeader dbfHeader, Set<DbfColumn> columns) {
+            left.collectColumns(dbfHeader, columns);
+            right.collectColumns(dbfHeader, columns);
+        }
+    }
+
+    private static class ColumnFilter extends DbfFilter {
+        private final String colName;
+        private final DbfOperator operator;
+        private final Object value;
+
+        ColumnFilter(String colName, DbfOperator operator, Object value) {
+            this.colName = colName;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        void collectColumns(DbfHeader dbfHeader, Set<DbfColumn> columns) {
+            columns.add(dbfHeader.getDbfColumn(colName));
+        }
+
+        @Override
+        Predicate compile(DbfHeader dbfHeader) {
+            DbfColumn column = dbfHeader.getDbfColumn(colName);
+            DbfColumnTypes type = column.getDbfColumnType();
+            DbfColumnPosition dcp = column.getDbfColumnPosition();
+            if (value == null) {
+                if (operator != DbfOperator.EQ && operator != DbfOperator.NE) {
+                    throw new DbfEngineException(DbfConstants.EXCP_FILTER_OP + colName);
+                }
+                if (dcp.getNullByte() >= 0) {
+                    return new NullPredicate(dcp, operator == DbfOperator.EQ);
+                }
+                return new EmptyPredicate(dcp, operator == DbfOperator.EQ);
+            }
+            Predicate predicate = compileValue(dbfHeader, type, dcp);
+            if (dcp.getNullByte() >= 0) {
+                return new NotNullPredicate(dcp, operator, predicate);
+            }
+            return predicate;
+        }
+
+        private Predicate compileValue(DbfHeader dbfHeader, DbfColumnTypes type, DbfColumnPosition dcp) {
+            if (operator == DbfOperator.STARTS_WITH && type != DbfColumnTypes.Character) {
+                throw new DbfEngineException(DbfConstants.EXCP_FILTER_OP + colName);
+            }
+            try {
+                switch (type) {
+                    case Character:
+                        return new CharPredicate(dcp, operator, encode(dbfHeader, (String) value));
+                    case Numeric:
+                    case Float:
+                        return new NumericPredicate(dcp, operator, toBigDecimal(value));
+                    case Integer:
+                    case Currency:
+                    case Double:
+                        return new BinaryNumberPredicate(dcp, operator, toBigDecimal(value));
+                    case Date:
+                        return new DatePredicate(dcp, operator, toDateValue(value));
+                    case Logical:
+                        if (operator != DbfOperator.EQ && operator != DbfOperator.NE) {
+                            throw new DbfEngineException(DbfConstants.EXCP_FILTER_OP + colName);
+                        }
+                        return new LogicalPredicate(dcp, operator == DbfOperator.EQ, (Boolean) value);
+                    default:
+                        throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE + colName);
+                }
+            } catch (ClassCastException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_FILTER_VALUE + colName, e);
+            } catch (NumberFormatException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_FILTER_VALUE + colName, e);
+            }
+        }
+
+        private static byte[] encode(DbfHeader dbfHeader, String str) {
+            byte[] bytes = null;
+            DbfCodePages dbfCodePages = dbfHeader.getDbfCodePages();
+            if (dbfCodePages != null && dbfCodePages.getCharTable() != null) {
+                bytes = dbfCodePages.getCharTable().encode(str);
+            }
+            if (bytes == null) {
+                try {
+                    bytes = str.getBytes(dbfHeader.getCodePage());
+                } catch (UnsupportedEncodingException e) {
+                    throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP, e);
+                }
+            }
+            return bytes;
+        }
+
+        private static BigDecimal toBigDecimal(Object value) {
+            if (value instanceof BigDecimal) {
+                return (BigDecimal) value;
+            }
+            if (value instanceof Long || value instanceof Integer || value instanceof Short
+                    || value instanceof Byte) {
+                return BigDecimal.valueOf(((Number) value).longValue());
+            }
+            if (value instanceof BigInteger) {
+                return new BigDecimal((BigInteger) value);
+            }
+            return new BigDecimal(value.toString());
+        }
+
+        private static int toDateValue(Object value) {
+            if (value instanceof Integer) {
+                return (Integer) value;
+            }
+            if (value instanceof LocalDate) {
+                LocalDate date = (LocalDate) value;
+                return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+            }
+            Calendar cal = Calendar.getInstance();
+            cal.setTime((Date) value);
+            return cal.get(Calendar.YEAR) * 10000 + (cal.get(Calendar.MONTH) + 1) * 100
+                    + cal.get(Calendar.DAY_OF_MONTH);
+        }
+    }
+
+    private static class NullPredicate implements Predicate {
+        private final int nullByte;
+        private final byte nullMask;
+        private final boolean isNull;
+
+        NullPredicate(DbfColumnPosition dcp, boolean isNull) {
+            this.nullByte = dcp.getNullByte();
+            this.nullMask = dcp.getNullMask();
+            this.isNull = isNull;
+        }
+
+        public boolean test(byte[] record) {
+            return ((record[nullByte] & nullMask) != 0) == isNull;
+        }
+    }
+
+    /**
+     * Null value of nullable field matches NE operator only, as empty field does.
+     */
+    private static class NotNullPredicate implements Predicate {
+        private final int nullByte;
+        private final byte nullMask;
+        private final boolean nullMatches;
+        private final Predicate predicate;
+
+        NotNullPredicate(DbfColumnPosition dcp, DbfOperator operator, Predicate predicate) {
+            this.nullByte = dcp.getNullByte();
+            this.nullMask = dcp.getNullMask();
+            this.nullMatches = operator == DbfOperator.NE;
+            this.predicate = predicate;
+        }
+
+        public boolean test(byte[] record) {
+            if ((record[nullByte] & nullMask) != 0) {
+                return nullMatches;
+            }
+            return predicate.test(record);
+        }
+    }
+
+    private static class EmptyPredicate implements Predicate {
+        private final int offset;
+        private final int length;
+        private final boolean empty;
+
+        EmptyPredicate(DbfColumnPosition dcp, boolean empty) {
+            this.offset = dcp.getOffset();
+            this.length = dcp.getColumnLength();
+            this.empty = empty;
+        }
+
+        public boolean test(byte[] record) {
+            return DbfHelper.isEmpty(record, offset, length) == empty;
+        }
+    }
+
+    private static class CharPredicate implements Predicate {
+        private final int offset;
+        private final int length;
+        private final DbfOperator operator;
+        private final byte[] value;
+
+        CharPredicate(DbfColumnPosition dcp, DbfOperator operator, byte[] value) {
+            this.offset = dcp.getOffset();
+            this.length = dcp.getColumnLength();
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public boolean test(byte[] record) {
+            if (DbfHelper.isEmpty(record, offset, length)) {
+                return operator == DbfOperator.NE;
+            }
+            if (operator == DbfOperator.STARTS_WITH) {
+                if (value.length > length) {
+                    return false;
+                }
+                for (int i = 0; i < value.length; i++) {
+                    if (record[offset + i] != value[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return operator.accept(compare(record));
+        }
+
+        /**
+         * Compares field with value padded by spaces. Trailing zero bytes of field are spaces as for getString.
+         */
+        private int compare(byte[] record) {
+            for (int i = 0; i < length; i++) {
+                int fb = record[offset + i] & 0xff;
+                if (fb == 0) {
+                    fb = DbfConstants.DBF_REC_FILLSYMB;
+                }
+                int vb = i < value.length ? value[i] & 0xff : DbfConstants.DBF_REC_FILLSYMB;
+                if (fb != vb) {
+                    return fb - vb;
+                }
+            }
+            return value.length > length ? -1 : 0;
+        }
+    }
+
+    private static class NumericPredicate implements Predicate {
+        private static final long[] POW10 = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L,
+                10000000L, 100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L,
+                10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L,
+                100000000000000000L, 1000000000000000000L};
+
+        private final int offset;
+        private final int length;
+        private final DbfOperator operator;
+        private final BigDecimal value;
+        private final int scale;
+        private final long unscaled;
+        private final boolean exact;
+        private final DbfNumber number = new DbfNumber();
+
+        NumericPredicate(DbfColumnPosition dcp, DbfOperator operator, BigDecimal value) {
+            this.offset = dcp.getOffset();
+            this.length = dcp.getColumnLength();
+            this.operator = operator;
+            this.value = value;
+            this.scale = dcp.getColumnDotAmount();
+            long unscaledValue = 0;
+            boolean exactValue = false;
+            try {
+                BigInteger bi = value.setScale(scale).unscaledValue();
+                if (bi.bitLength() < 64) {
+                    unscaledValue = bi.longValue();
+                    exactValue = true;
+                }
+            } catch (ArithmeticException e) {
+                // value has more decimals than field, it is compared as BigDecimal
+                exactValue = false;
+            }
+            this.unscaled = unscaledValue;
+            this.exact = exactValue;
+        }
+
+        public boolean test(byte[] record) {
+            int status = number.parse(record, offset, length, true);
+            if (status == DbfNumber.EMPTY) {
+                return operator == DbfOperator.NE;
+            }
+            if (status == DbfNumber.PARSED && exact) {
+                int diff = scale - number.getScale();
+                if (diff >= 0 && diff < POW10.length) {
+                    long fieldValue = number.longValue();
+                    long high = Long.MAX_VALUE / POW10[diff];
+                    if (fieldValue <= high && fieldValue >= -high) {
+                        fieldValue *= POW10[diff];
+                        return operator.accept(fieldValue < unscaled ? -1 : (fieldValue == unscaled ? 0 : 1));
+                    }
+                }
+            }
+            BigDecimal fieldValue;
+            if (status == DbfNumber.PARSED) {
+                fieldValue = number.bigDecimalValue();
+            } else {
+                String str = new String(record, offset, length, StandardCharsets.ISO_8859_1).trim();
+                try {
+                    fieldValue = new BigDecimal(str.replace(",", "").replace("'", ""));
+                } catch (NumberFormatException e) {
+                    throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM + ": " + str);
+                }
+            }
+            return operator.accept(fieldValue.compareTo(value));
+        }
+    }
+
+    /**
+     * Compares binary number of Visual Foxpro without decoding into text: integer and currency are compared
+     * as longs (currency is kept multiplied by 10000), double is compared as double.
+     */
+    private static class BinaryNumberPredicate implements Predicate {
+        private static final int CURRENCY_SCALE = 4;
+
+        private final int offset;
+        private final DbfColumnTypes type;
+        private final DbfOperator operator;
+        private final long longValue;
+        private final int longRounding;
+        private final double doubleValue;
+
+        BinaryNumberPredicate(DbfColumnPosition dcp, DbfOperator operator, BigDecimal value) {
+            this.offset = dcp.getOffset();
+            this.type = dcp.getBinaryType();
+            this.operator = operator;
+            this.doubleValue = value.doubleValue();
+            BigDecimal scaled = type == DbfColumnTypes.Currency ? value.movePointRight(CURRENCY_SCALE) : value;
+            // field is compared with value rounded down, and the rest of value decides equal case
+            BigDecimal floor = scaled.setScale(0, RoundingMode.FLOOR);
+            long bound = type == DbfColumnTypes.Integer ? Integer.MAX_VALUE : Long.MAX_VALUE;
+            if (floor.compareTo(BigDecimal.valueOf(bound)) > 0) {
+                this.longValue = bound;
+                this.longRounding = 1;
+            } else if (floor.compareTo(BigDecimal.valueOf(-bound - 1)) < 0) {
+                this.longValue = -bound - 1;
+                this.longRounding = -1;
+            } else {
+                this.longValue = floor.longValue();
+                this.longRounding = floor.compareTo(scaled) == 0 ? 0 : 1;
+            }
+        }
+
+        public boolean test(byte[] record) {
+            if (type == DbfColumnTypes.Double) {
+                return operator.accept(Double.compare(
+                        Double.longBitsToDouble(DbfHelper.readLongLE(record, offset)), doubleValue));
+            }
+            long fieldValue = type == DbfColumnTypes.Integer
+                    ? DbfHelper.readIntLE(record, offset) : DbfHelper.readLongLE(record, offset);
+            if (fieldValue != longValue) {
+                return operator.accept(fieldValue < longValue ? -1 : 1);
+            }
+            // field is equal to rounded value, so it is less than value which has a rest
+            return operator.accept(-longRounding);
+        }
+    }
+
+    private static class DatePredicate implements Predicate {
+        private final int offset;
+        private final int length;
+        private final DbfOperator operator;
+        private final int value;
+
+        DatePredicate(DbfColumnPosition dcp, DbfOperator operator, int value) {
+            this.offset = dcp.getOffset();
+            this.length = dcp.getColumnLength();
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public boolean test(byte[] record) {
+            int date = DbfHelper.parseDate(record, offset, length);
+            if (date == 0) {
+                return operator == DbfOperator.NE;
+            }
+            if (date == DbfHelper.DATE_UNPARSED) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + ": "
+                        + new String(record, offset, length, StandardCharsets.ISO_8859_1));
+            }
+            return operator.accept(date < value ? -1 : (date == value ? 0 : 1));
+        }
+    }
+
+    private static class LogicalPredicate implements Predicate {
+        private final int offset;
+        private final boolean equal;
+        private final boolean value;
+
+        LogicalPredicate(DbfColumnPosition dcp, boolean equal, Boolean value) {
+            this.offset = dcp.getOffset();
+            this.equal = equal;
+            this.value = value.booleanValue();
+        }
+
+        public boolean test(byte[] record) {
+            boolean flag = record[offset] == DbfConstants.LOGICAL_TRUE;
+            return (flag == value) == equal;
+        }
+    }
+}
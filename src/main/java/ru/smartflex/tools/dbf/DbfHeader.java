@@ -32,6 +32,8 @@ public class DbfHeader {
 
     private DbfIterator dbfIterator = null;
     private DbfCodePages dbfCodePages = null;
+    private DbfMemoFile memoFile = null;
+    private DbfColumn nullFlagsColumn = null;
 
     protected DbfHeader(File dbfFile, String enc, DbfIterator dbfIterator) {
         // Open for reading
@@ -142,6 +144,7 @@ public class DbfHeader {
             throw new DbfEngineException(DbfConstants.EXCP_COLUMN_EXISTED
                     + dbfColumn.getColumnName());
         }
+        dbfColumn.setColumnIndex(orderedColumns.size());
         columns.put(dbfColumn.getColumnName(), dbfColumn);
         orderedColumns.add(dbfColumn);
     }
@@ -150,6 +153,55 @@ public class DbfHeader {
         return columns.get(name);
     }
 
+    /**
+     * Returns column by name. The column may be used as handle for getters of DbfRecord and setters of DbfStatement,
+     * so search of column by name is made once instead of every record.
+     *
+     * @param columnName column name
+     * @return column
+     * @since 1.13
+     */
+    public DbfColumn getDbfColumn(String columnName) {
+        DbfColumn dbfColumn = null;
+        if (columnName != null) {
+            dbfColumn = columns.get(columnName.toUpperCase());
+        }
+        if (dbfColumn == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOEXISTS
+                    + columnName);
+        }
+        return dbfColumn;
+    }
+
+    /**
+     * Returns column by its ordinal number.
+     *
+     * @param index ordinal number of column, starting from zero
+     * @return column
+     * @see #getDbfColumn(String)
+     * @since 1.13
+     */
+    public DbfColumn getDbfColumn(int index) {
+        if (index < 0 || index >= orderedColumns.size()) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOEXISTS
+                    + index);
+        }
+        return orderedColumns.get(index);
+    }
+
+    /**
+     * Returns column of this header for given column. Column of other header (for example, of other reader
+     * of the same file) is found by name, as it was done before column handles.
+     */
+    DbfColumn resolveColumn(DbfColumn dbfColumn) {
+        int index = dbfColumn.getColumnIndex();
+        if (index >= 0 && index < orderedColumns.size()
+                && orderedColumns.get(index) == dbfColumn) {
+            return dbfColumn;
+        }
+        return getDbfColumn(dbfColumn.getColumnName());
+    }
+
     private void parseDbfHeader(File dbf) {
         try {
             dbfStream = new FileInputStream(dbf);
@@ -245,12 +297,14 @@ public class DbfHeader {
                     if (dbfColumn.getDbfColumnType() == null) {
                         throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOTYPE);
                     }
+                    dbfColumn.setColumnIndex(orderedColumns.size());
                     columns.put(dbfColumn.getColumnName(), dbfColumn);
                     orderedColumns.add(dbfColumn);
 
                     currentOffset += 31;
                 }
             } while (next);
+            assignNullFlags();
 
             if (currentOffset < firstRecordPosition) {
                 do {
@@ -264,6 +318,95 @@ public class DbfHeader {
         }
     }
 
+    /**
+     * Maps nullable fields and fields of variable length to bits of <code>_NullFlags</code> field. Bits are
+     * given in order of fields: bit of variable length goes first, then null bit. Position of byte and mask
+     * of bit are kept by field, so null check is single bit test.
+     */
+    void assignNullFlags() {
+        nullFlagsColumn = null;
+        for (DbfColumn dc : orderedColumns) {
+            if (dc.getDbfColumnType() == DbfColumnTypes.NullFlags) {
+                nullFlagsColumn = dc;
+                break;
+            }
+        }
+        if (nullFlagsColumn == null) {
+            return;
+        }
+        DbfColumnPosition flags = nullFlagsColumn.getDbfColumnPosition();
+        int bit = 0;
+        for (DbfColumn dc : orderedColumns) {
+            if (dc == nullFlagsColumn) {
+                continue;
+            }
+            DbfColumnPosition dcp = dc.getDbfColumnPosition();
+            if (dc.isVarLength()) {
+                checkNullFlagsBit(bit);
+                dcp.setVarLengthBit(flags.getOffset() + bit / 8, (byte) (1 << (bit % 8)));
+                bit++;
+            }
+            if (dc.isNullable()) {
+                checkNullFlagsBit(bit);
+                dcp.setNullBit(flags.getOffset() + bit / 8, (byte) (1 << (bit % 8)));
+                bit++;
+            }
+        }
+    }
+
+    private void checkNullFlagsBit(int bit) {
+        if (bit / 8 >= nullFlagsColumn.getDbfColumnPosition().getColumnLength()) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NULL_FLAGS);
+        }
+    }
+
+    /**
+     * Returns count of bits of <code>_NullFlags</code> field which are needed by columns.
+     */
+    int countNullFlagsBits() {
+        int bits = 0;
+        for (DbfColumn dc : orderedColumns) {
+            if (dc.isVarLength()) {
+                bits++;
+            }
+            if (dc.isNullable()) {
+                bits++;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns <code>true</code> if dbf file has memo, general or blob fields, which are kept in memo file.
+     */
+    boolean hasMemoColumns() {
+        for (DbfColumn column : orderedColumns) {
+            if (column.getDbfColumnType().isMemo()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if dbf file has <code>_NullFlags</code> field (Visual Foxpro).
+     */
+    boolean hasNullFlags() {
+        return nullFlagsColumn != null;
+    }
+
+    /**
+     * Returns hidden <code>_NullFlags</code> field or <code>null</code> if there is no such field.
+     */
+    DbfColumn getNullFlagsColumn() {
+        return nullFlagsColumn;
+    }
+
+    boolean isVisualFoxPro() {
+        return typeDbf == DbfType.Visual_FoxPro || typeDbf == DbfType.Visual_FoxPro_autoincrement
+                || typeDbf == DbfType.Visual_FoxPro_varchar;
+    }
+
     int getCurrentOffset() {
         return currentOffset;
     }
@@ -282,6 +425,10 @@ public class DbfHeader {
         return countRecords;
     }
 
+    int getFirstRecordPosition() {
+        return firstRecordPosition;
+    }
+
     String getCodePage() {
         return codePage;
     }
@@ -364,4 +511,18 @@ public class DbfHeader {
     protected DbfCodePages getDbfCodePages() {
         return dbfCodePages;
     }
+
+    /**
+     * Returns memo file (.fpt or .dbt) of dbf file or <code>null</code> if it is not found.
+     */
+    DbfMemoFile getMemoFile() {
+        return memoFile;
+    }
+
+    /**
+     * Sets memo file which is read by memo getters of records.
+     */
+    void setMemoFile(DbfMemoFile memoFile) {
+        this.memoFile = memoFile;
+    }
 }
@@ -0,0 +1,183 @@
+package ru.smartflex.tools.dbf;
+
+/**
+ * Helper class that provides conversion of raw bytes of dbf record.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+final class DbfHelper {
+
+    /**
+     * Value of date which is not written as YYYYMMDD digits.
+     */
+    static final int DATE_UNPARSED = -1;
+
+    private static final int[] MONTH_DAYS = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int DAYS_0000_TO_1970 = 719528;
+    private static final int JULIAN_DAY_1970 = 2440588;
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private DbfHelper() {
+    }
+
+    /**
+     * Parses date field (YYYYMMDD) into int value like 19120102.
+     *
+     * @param record record buffer
+     * @param offset offset of field
+     * @param length length of field
+     * @return date as yyyymmdd int, 0 for empty field or DATE_UNPARSED if field is not written as 8 digits
+     */
+    static int parseDate(byte[] record, int offset, int length) {
+        if (isEmpty(record, offset, length)) {
+            return 0;
+        }
+        if (length != 8) {
+            return DATE_UNPARSED;
+        }
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = record[i];
+            if (b < '0' || b > '9') {
+                return DATE_UNPARSED;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Checks that date value (yyyymmdd int) is valid date of ISO calendar.
+     */
+    static boolean isValidDate(int value) {
+        int year = value / 10000;
+        int month = value / 100 % 100;
+        int day = value % 100;
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        int monthDays = MONTH_DAYS[month - 1];
+        if (month == 2 && isLeapYear(year)) {
+            monthDays++;
+        }
+        return day <= monthDays;
+    }
+
+    /**
+     * Converts valid date value (yyyymmdd int) into count of days from 1970-01-01 as LocalDate.toEpochDay does,
+     * but without creation of objects.
+     */
+    static int toEpochDay(int value) {
+        int year = value / 10000;
+        int month = value / 100 % 100;
+        int day = value % 100;
+        int total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Converts count of days from 1970-01-01 into date value (yyyymmdd int) as LocalDate.ofEpochDay does,
+     * but without creation of objects.
+     */
+    static int fromEpochDay(long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        long era = Math.floorDiv(zeroDay, 146097);
+        long dayOfEra = zeroDay - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long year = yearOfEra + era * 400;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthShifted = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthShifted + 2) / 5 + 1;
+        long month = monthShifted < 10 ? monthShifted + 3 : monthShifted - 9;
+        if (month <= 2) {
+            year++;
+        }
+        if (year < 0 || year > 9999) {
+            return DATE_UNPARSED;
+        }
+        return (int) (year * 10000 + month * 100 + day);
+    }
+
+    /**
+     * Reads Visual Foxpro datetime (julian day and milliseconds of day, both little-endian ints)
+     * as milliseconds from 1970-01-01T00:00.
+     *
+     * @return milliseconds or <code>Long.MIN_VALUE</code> for empty field
+     */
+    static long readDateTime(byte[] record, int offset) {
+        int julianDay = readIntLE(record, offset);
+        if (julianDay == 0) {
+            return Long.MIN_VALUE;
+        }
+        return (julianDay - JULIAN_DAY_1970) * MILLIS_PER_DAY + readIntLE(record, offset + 4);
+    }
+
+    /**
+     * Writes milliseconds from 1970-01-01T00:00 as Visual Foxpro datetime.
+     */
+    static void writeDateTime(byte[] record, int offset, long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        writeIntLE(record, offset, (int) (epochDay + JULIAN_DAY_1970));
+        writeIntLE(record, offset + 4, (int) (epochMillis - epochDay * MILLIS_PER_DAY));
+    }
+
+    /**
+     * Reads little-endian int (Visual Foxpro integer and parts of datetime).
+     */
+    static int readIntLE(byte[] record, int offset) {
+        return (record[offset] & 0xff) | ((record[offset + 1] & 0xff) << 8)
+                | ((record[offset + 2] & 0xff) << 16) | (record[offset + 3] << 24);
+    }
+
+    /**
+     * Reads big-endian int (headers of Foxpro memo blocks).
+     */
+    static int readIntBE(byte[] record, int offset) {
+        return (record[offset] << 24) | ((record[offset + 1] & 0xff) << 16)
+                | ((record[offset + 2] & 0xff) << 8) | (record[offset + 3] & 0xff);
+    }
+
+    /**
+     * Reads little-endian long (Visual Foxpro currency and raw bits of double).
+     */
+    static long readLongLE(byte[] record, int offset) {
+        return (readIntLE(record, offset) & 0xffffffffL) | ((long) readIntLE(record, offset + 4) << 32);
+    }
+
+    static void writeIntLE(byte[] record, int offset, int value) {
+        record[offset] = (byte) value;
+        record[offset + 1] = (byte) (value >> 8);
+        record[offset + 2] = (byte) (value >> 16);
+        record[offset + 3] = (byte) (value >> 24);
+    }
+
+    static void writeLongLE(byte[] record, int offset, long value) {
+        writeIntLE(record, offset, (int) value);
+        writeIntLE(record, offset + 4, (int) (value >> 32));
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Checks field on spaces and zeros only.
+     */
+    static boolean isEmpty(byte[] record, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if ((record[i] & 0xff) > DbfConstants.DBF_REC_FILLSYMB) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,8 +1,12 @@
 package ru.smartflex.tools.dbf;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * An iterator over xBase file. Reads all file from first record to last record.
@@ -19,15 +23,83 @@ public class DbfIterator {
     private byte[] record = null;
     private int lengthRecord = 0;
     private static final int NON_FILLED_FLAG = -10;
+    private static final int PREFETCH_BLOCK_SIZE = 1024 * 1024;
+    static final int PREFETCH_BLOCK_COUNT = 3;
 
     private int finishOrDeleteFLag = NON_FILLED_FLAG;
 
     private DbfHeader dbfHeader;
+    private File dbfFile = null;
+    private DbfChannelReader channelReader = null;
+    private boolean mapped = false;
+    private DbfRecordBatch recordBatch = null;
+    private DbfProjection projection = null;
+    private DbfProjection readProjection = null;
+    private DbfFilter filter = null;
+    private DbfFilter.Predicate predicate = null;
+    private Set<DbfColumn> filterColumns = null;
+    private boolean matched = false;
+    private boolean memoOwner = true;
 
     DbfIterator(File dbfFile, String enc) {
+        this.dbfFile = dbfFile;
         dbfHeader = new DbfHeader(dbfFile, enc, this);
         handleDbfHeader(dbfHeader);
         this.dbfStream = dbfHeader.getDbfStream();
+        dbfHeader.setMemoFile(DbfMemoFile.forDbf(dbfFile));
+    }
+
+    /**
+     * Constructor for memory mapped reading of file.
+     *
+     * @param dbfFile dbf file
+     * @param enc     code page
+     * @param mapped  flag of memory mapped mode
+     * @since 1.13
+     */
+    DbfIterator(File dbfFile, String enc, boolean mapped) {
+        this(dbfFile, enc);
+        this.mapped = mapped;
+        if (mapped) {
+            openChannelReader();
+        }
+    }
+
+    /**
+     * Constructor for iterator over part of dbf file. The channel and the memo file are shared between iterators
+     * and are not closed by them.
+     *
+     * @param dbfHeader   dbf header
+     * @param channel     file channel
+     * @param firstRecord number of first record of part
+     * @param lastRecord  number of record next to last record of part
+     * @since 1.13
+     */
+    DbfIterator(DbfHeader dbfHeader, FileChannel channel, int firstRecord, int lastRecord) {
+        this.dbfHeader = dbfHeader;
+        handleDbfHeader(dbfHeader);
+        currentRecord = firstRecord;
+        countRecord = lastRecord;
+        channelReader = new DbfChannelReader(channel, dbfHeader, false);
+        memoOwner = false;
+    }
+
+    /**
+     * Constructor for iterator over part of dbf file with projection of columns.
+     *
+     * @param dbfHeader   dbf header
+     * @param channel     file channel
+     * @param firstRecord number of first record of part
+     * @param lastRecord  number of record next to last record of part
+     * @param projection  projection of columns or null
+     * @since 1.13
+     */
+    DbfIterator(DbfHeader dbfHeader, FileChannel channel, int firstRecord, int lastRecord,
+                DbfProjection projection) {
+        this(dbfHeader, channel, firstRecord, lastRecord);
+        if (projection != null) {
+            setProjection(projection);
+        }
     }
 
     DbfIterator(InputStream is, String enc) {
@@ -36,13 +108,48 @@ public class DbfIterator {
         handleDbfHeader(dbfHeader);
     }
 
+    /**
+     * Constructor for stream with asynchronous read-ahead. Header is read directly, then records are read by blocks
+     * of whole records.
+     *
+     * @param is              input stream
+     * @param enc             code page
+     * @param recordsPerBlock count of records in block (0 means block of about 1 Mb)
+     * @param blockCount      count of blocks
+     * @since 1.13
+     */
+    DbfIterator(InputStream is, String enc, int recordsPerBlock, int blockCount) {
+        this(is, enc);
+        int records = recordsPerBlock;
+        if (records <= 0) {
+            records = Math.max(1, PREFETCH_BLOCK_SIZE / lengthRecord);
+        }
+        this.dbfStream = new DbfPrefetchInputStream(is, records * lengthRecord, blockCount);
+    }
+
+    /**
+     * Sets memo file (.fpt or .dbt). Memo file which has the same name as dbf file is found automatically,
+     * so it is needed for iterator over stream or for memo file with other name.
+     *
+     * @param memoFile memo file
+     * @return this iterator
+     * @since 1.13
+     */
+    public DbfIterator setMemoFile(File memoFile) {
+        if (!memoFile.exists()) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS);
+        }
+        dbfHeader.setMemoFile(new DbfMemoFile(memoFile));
+        return this;
+    }
+
     /**
      * Returns DBF file header definition
      *
      * @return DBF file header definition
      * @since 1.05
      */
-    DbfHeader getDbfHeader() {
+    public DbfHeader getDbfHeader() {
         return dbfHeader;
     }
 
@@ -66,6 +173,23 @@ public class DbfIterator {
      * @since 1.00
      */
     public boolean hasMoreRecords() {
+        if (predicate == null) {
+            return hasMoreRawRecords();
+        }
+        if (matched) {
+            return true;
+        }
+        while (hasMoreRawRecords()) {
+            readNextRecord();
+            if (predicate.test(record)) {
+                matched = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasMoreRawRecords() {
         boolean ok = false;
         if (currentRecord < this.countRecord) {
             ok = true;
@@ -74,10 +198,14 @@ public class DbfIterator {
             if (finishOrDeleteFLag == NON_FILLED_FLAG) {
                 // non filled flag. Then read it
                 // checks finishing byte of file
-                try {
-                    finishOrDeleteFLag = dbfStream.read() & 0xff;
-                } catch (IOException e) {
-                    throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+                if (channelReader != null) {
+                    finishOrDeleteFLag = channelReader.readFlag(currentRecord);
+                } else {
+                    try {
+                        finishOrDeleteFLag = dbfStream.read() & 0xff;
+                    } catch (IOException e) {
+                        throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+                    }
                 }
             }
             // flag was read
@@ -89,6 +217,10 @@ public class DbfIterator {
                 }
             }
         }
+        if (!ok) {
+            // memo of the last record may be read until iteration is finished
+            closeMemoFile();
+        }
         return ok;
     }
 
@@ -103,39 +235,241 @@ public class DbfIterator {
         if (!hasMoreRecords()) {
             return null;
         } else {
-            dbfRecord.setCurrentRecord(currentRecord);
-            try {
-                record[0] = (byte) finishOrDeleteFLag;
-                int numLeft = lengthRecord - 1;
-                int offs = 1;
-                while (numLeft > 0) {
-                    int numRead = dbfStream.read(record, offs, numLeft);
-                    if (numRead == -1) {
-                        dbfStream.close();
-                        throw new DbfEngineException(
-                                DbfConstants.EXCP_REC_UNEXP + currentRecord);
-                    }
-                    offs += numRead;
-                    numLeft -= numRead;
-                }
-                currentRecord++;
-                if (currentRecord >= this.countRecord) {
-                    dbfStream.close();
-                }
-
-                finishOrDeleteFLag = NON_FILLED_FLAG;
-            } catch (IOException e) {
-                throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+            if (predicate == null) {
+                readNextRecord();
+            } else {
+                // record was read by hasMoreRecords
+                matched = false;
             }
             return dbfRecord;
         }
     }
 
+    private void readNextRecord() {
+        dbfRecord.setCurrentRecord(currentRecord);
+        try {
+            if (channelReader != null) {
+                readChannelRecord();
+            } else {
+                readStreamRecord();
+            }
+            currentRecord++;
+            if (currentRecord >= this.countRecord) {
+                closeStream();
+            }
+
+            finishOrDeleteFLag = NON_FILLED_FLAG;
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Defines condition on records. Records which do not match the condition are skipped by
+     * {@link #hasMoreRecords()}, {@link #nextRecord()} and {@link #nextBatch(int)}. Condition is checked on raw bytes
+     * of record, so skipped records are not decoded at all. Second invocation of the method combines conditions by AND.
+     *
+     * @param filter condition
+     * @return this iterator
+     * @see DbfFilter
+     * @since 1.13
+     */
+    public DbfIterator where(DbfFilter filter) {
+        if (this.filter == null) {
+            this.filter = filter;
+        } else {
+            this.filter = this.filter.and(filter);
+        }
+        predicate = this.filter.compile(dbfHeader);
+        filterColumns = new LinkedHashSet<DbfColumn>();
+        this.filter.collectColumns(dbfHeader, filterColumns);
+        matched = false;
+        defineReadProjection();
+        return this;
+    }
+
+    /**
+     * Defines condition on field.
+     *
+     * @param colName  xBase field name
+     * @param operator comparison operator
+     * @param value    value
+     * @return this iterator
+     * @see #where(DbfFilter)
+     * @see DbfFilter#where(String, DbfOperator, Object)
+     * @since 1.13
+     */
+    public DbfIterator where(String colName, DbfOperator operator, Object value) {
+        return where(DbfFilter.where(colName, operator, value));
+    }
+
+    /**
+     * Reads up to <code>count</code> next records and decodes them column by column.
+     * The batch object is reused by the next invocation, as record object is reused by {@link #nextRecord()}.
+     *
+     * @param count maximum count of records in batch
+     * @return batch of records or <code>null</code> if there are no more records
+     * @since 1.13
+     */
+    public DbfRecordBatch nextBatch(int count) {
+        if (count <= 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_BATCH_SIZE + count);
+        }
+        if (recordBatch == null || recordBatch.getCapacity() < count) {
+            recordBatch = new DbfRecordBatch(dbfHeader, count, projection);
+        }
+        byte[] block = recordBatch.getBlock();
+        int rows = 0;
+        while (rows < count && nextRecord() != null) {
+            System.arraycopy(record, 0, block, rows * lengthRecord, lengthRecord);
+            recordBatch.setRecordNumber(rows, dbfRecord.getCurrentRecord());
+            rows++;
+        }
+        if (rows == 0) {
+            return null;
+        }
+        recordBatch.decode(rows);
+        return recordBatch;
+    }
+
+    private void readChannelRecord() throws IOException {
+        if (!channelReader.readRecord(currentRecord, record)) {
+            closeStream();
+            throw new DbfEngineException(
+                    DbfConstants.EXCP_REC_UNEXP + currentRecord);
+        }
+    }
+
+    private void readStreamRecord() throws IOException {
+        record[0] = (byte) finishOrDeleteFLag;
+        int numLeft = lengthRecord - 1;
+        int offs = 1;
+        while (numLeft > 0) {
+            int numRead = dbfStream.read(record, offs, numLeft);
+            if (numRead == -1) {
+                dbfStream.close();
+                throw new DbfEngineException(
+                        DbfConstants.EXCP_REC_UNEXP + currentRecord);
+            }
+            offs += numRead;
+            numLeft -= numRead;
+        }
+    }
+
+    /**
+     * Moves iterator to the record with given number. The next invocation of {@link #nextRecord()} returns this record.
+     * The position of record is calculated from dbf header, so there is no reading of previous records.
+     * Random access is supported for iterators over dbf file only.
+     *
+     * @param recNo record number, starting from zero
+     * @since 1.13
+     */
+    public void goTo(int recNo) {
+        if (dbfFile == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_RANDOM_ACCESS);
+        }
+        if (recNo < 0 || recNo > countRecord) {
+            throw new DbfEngineException(DbfConstants.EXCP_REC_NUMBER + recNo);
+        }
+        if (channelReader == null || !channelReader.isOpen()) {
+            if (dbfStream == null || !((FileInputStream) dbfStream).getChannel().isOpen()) {
+                try {
+                    dbfStream = new FileInputStream(dbfFile);
+                } catch (IOException e) {
+                    throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+                }
+            }
+            openChannelReader();
+        }
+        currentRecord = recNo;
+        finishOrDeleteFLag = NON_FILLED_FLAG;
+        matched = false;
+    }
+
+    /**
+     * Reads the record with given number.
+     *
+     * @param recNo record number, starting from zero
+     * @return record or <code>null</code> if there is no such record in file
+     * @see #goTo(int)
+     * @since 1.13
+     */
+    public DbfRecord readRecord(int recNo) {
+        goTo(recNo);
+        if (!hasMoreRawRecords()) {
+            return null;
+        }
+        readNextRecord();
+        return dbfRecord;
+    }
+
+    private void openChannelReader() {
+        channelReader = new DbfChannelReader(
+                ((FileInputStream) dbfStream).getChannel(), dbfHeader, mapped);
+        channelReader.setProjection(readProjection);
+    }
+
+    /**
+     * Defines columns which are read. Other columns are not decoded by batches and are not accessible
+     * by getters of record. In memory mapped mode bytes of other columns are not copied at all.
+     *
+     * <pre>
+     * DbfIterator dbfIterator = DbfEngine.getReader(dbfFile, null).project(&quot;AOGUID&quot;, &quot;NAME&quot;);
+     * </pre>
+     *
+     * @param columnNames names of columns
+     * @return this iterator
+     * @since 1.13
+     */
+    public DbfIterator project(String... columnNames) {
+        setProjection(new DbfProjection(dbfHeader, columnNames));
+        return this;
+    }
+
+    void setProjection(DbfProjection projection) {
+        this.projection = projection;
+        dbfRecord.setProjection(projection);
+        defineReadProjection();
+        recordBatch = null;
+    }
+
+    /**
+     * Defines columns which are read into record buffer: projected columns and columns of filter.
+     */
+    private void defineReadProjection() {
+        readProjection = projection;
+        if (projection != null && filterColumns != null) {
+            Set<DbfColumn> columns = new LinkedHashSet<DbfColumn>(projection.getColumns());
+            columns.addAll(filterColumns);
+            readProjection = new DbfProjection(dbfHeader, columns);
+        }
+        if (channelReader != null) {
+            channelReader.setProjection(readProjection);
+        }
+    }
+
+    DbfProjection getProjection() {
+        return projection;
+    }
+
+    private void closeStream() throws IOException {
+        if (dbfStream != null) {
+            dbfStream.close();
+        }
+    }
+
+    private void closeMemoFile() {
+        if (memoOwner && dbfHeader.getMemoFile() != null) {
+            dbfHeader.getMemoFile().close();
+        }
+    }
+
     /**
      * The method has to be invoked in case when not all records were read.
      */
     public void closeIterator() {
         if (dbfStream != null) {
+            closeMemoFile();
             try {
                 dbfStream.close();
             } catch (IOException e) {
@@ -0,0 +1,316 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memo file of dbf file: Foxpro (.fpt) or dBase (.dbt). Memo is found by block number stored in record.
+ * Blocks are read by positional reads and small LRU cache of blocks is kept, so short memos of neighbour
+ * records are read once. Long memos are read directly (or by stream) and are not cached.
+ * <br>
+ * The file is opened on first read and it may be shared by several threads. Reads of channel hold the lock of
+ * the object, so the file is not closed during reading.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfMemoFile {
+
+    static final int CACHE_BLOCKS = 64;
+
+    private static final String[] EXTENSIONS = {".FPT", ".fpt", ".DBT", ".dbt"};
+    private static final int DBT3_BLOCK_SIZE = 512;
+    private static final int BLOCK_HEADER_LENGTH = 8;
+    private static final int STREAM_CHUNK_SIZE = 8 * 1024;
+
+    private File file;
+    private boolean foxpro;
+    private FileChannel channel = null;
+    private int blockSize;
+    private Map<Long, byte[]> cache;
+    private long knownSize = 0;
+
+    DbfMemoFile(File file) {
+        this.file = file;
+        String name = file.getName().toUpperCase();
+        foxpro = !name.endsWith(".DBT");
+    }
+
+    /**
+     * Finds memo file which has the same name as dbf file.
+     *
+     * @return memo file or <code>null</code> if it is not found
+     */
+    static DbfMemoFile forDbf(File dbfFile) {
+        String name = dbfFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        for (String extension : EXTENSIONS) {
+            File memoFile = new File(dbfFile.getParentFile(), base + extension);
+            if (memoFile.exists()) {
+                return new DbfMemoFile(memoFile);
+            }
+        }
+        return null;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    boolean isFoxpro() {
+        return foxpro;
+    }
+
+    int getBlockSize() {
+        open();
+        return blockSize;
+    }
+
+    private synchronized FileChannel open() {
+        if (channel == null) {
+            try {
+                channel = new RandomAccessFile(file, "r").getChannel();
+                ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_LENGTH * 4);
+                readFully(header, 0);
+                if (foxpro) {
+                    blockSize = ((header.get(6) & 0xff) << 8) | (header.get(7) & 0xff);
+                } else {
+                    // dBase IV keeps block size, dBase III has fixed block size
+                    blockSize = (header.get(20) & 0xff) | ((header.get(21) & 0xff) << 8);
+                    if (blockSize == 0) {
+                        blockSize = DBT3_BLOCK_SIZE;
+                    }
+                }
+                if (blockSize == 0) {
+                    throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+                }
+                cache = new LinkedHashMap<Long, byte[]>(CACHE_BLOCKS, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                        return size() > CACHE_BLOCKS;
+                    }
+                };
+            } catch (IOException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+            }
+        }
+        return channel;
+    }
+
+    synchronized boolean isOpened() {
+        return channel != null;
+    }
+
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing to do
+            } finally {
+                channel = null;
+                cache = null;
+                knownSize = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads bytes of file. Bytes after end of file are zeros.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int numRead = channel.read(buffer, pos);
+            if (numRead == -1) {
+                break;
+            }
+            pos += numRead;
+        }
+    }
+
+    /**
+     * Reads bytes of memo under lock, so channel is not closed by other thread during reading.
+     */
+    private synchronized void readChannel(ByteBuffer buffer, long position) throws IOException {
+        open();
+        readFully(buffer, position);
+    }
+
+    private synchronized byte[] getBlock(long block) {
+        open();
+        byte[] data = cache.get(block);
+        if (data == null) {
+            data = new byte[blockSize];
+            try {
+                readFully(ByteBuffer.wrap(data), block * blockSize);
+            } catch (IOException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+            }
+            cache.put(block, data);
+        }
+        return data;
+    }
+
+    /**
+     * Finds position and length of memo data.
+     *
+     * @return array of position in file and length of data
+     */
+    private long[] locate(long block) {
+        long start = block * getBlockSize();
+        checkEnd(start + 1);
+        byte[] first = getBlock(block);
+        if (foxpro) {
+            long length = DbfHelper.readIntBE(first, 4) & 0xffffffffL;
+            checkEnd(start + BLOCK_HEADER_LENGTH + length);
+            return new long[]{start + BLOCK_HEADER_LENGTH, length};
+        }
+        if ((first[0] & 0xff) == 0xff && (first[1] & 0xff) == 0xff && first[2] == 0x08 && first[3] == 0) {
+            // dBase IV: length includes header of block
+            long length = (DbfHelper.readIntLE(first, 4) & 0xffffffffL) - BLOCK_HEADER_LENGTH;
+            if (length < 0) {
+                throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+            }
+            checkEnd(start + BLOCK_HEADER_LENGTH + length);
+            return new long[]{start + BLOCK_HEADER_LENGTH, length};
+        }
+        // dBase III: text is ended by 0x1A
+        long length = 0;
+        long current = block;
+        byte[] data = first;
+        while (true) {
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == DbfConstants.DBF_END_OF_FILE) {
+                    return new long[]{start, length + i};
+                }
+            }
+            length += data.length;
+            current++;
+            if (current * blockSize >= fileSize()) {
+                return new long[]{start, length};
+            }
+            data = getBlock(current);
+        }
+    }
+
+    private synchronized long fileSize() {
+        try {
+            return open().size();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Checks that memo is ended inside of file, so block number and length of damaged memo file are not trusted.
+     * Size of file is read again only if memo is ended after known size (the file may be appended).
+     */
+    private synchronized void checkEnd(long end) {
+        if (end > knownSize) {
+            knownSize = fileSize();
+            if (end > knownSize) {
+                throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+            }
+        }
+    }
+
+    /**
+     * Returns type of Foxpro memo (0 is picture, 1 is text).
+     *
+     * @param block number of first block
+     * @return type of memo
+     */
+    int getMemoType(long block) {
+        if (!foxpro) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+        }
+        checkEnd(block * getBlockSize() + BLOCK_HEADER_LENGTH);
+        return DbfHelper.readIntBE(getBlock(block), 0);
+    }
+
+    /**
+     * Reads content of memo.
+     *
+     * @param block number of first block
+     * @return content of memo
+     */
+    byte[] readMemo(long block) {
+        long[] location = locate(block);
+        if (location[1] > Integer.MAX_VALUE) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+        }
+        int length = (int) location[1];
+        byte[] memo = new byte[length];
+        int inBlock = (int) (location[0] - block * blockSize);
+        if (inBlock + length <= blockSize) {
+            System.arraycopy(getBlock(block), inBlock, memo, 0, length);
+        } else {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(memo);
+                readChannel(buffer, location[0]);
+                if (buffer.hasRemaining()) {
+                    throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+                }
+            } catch (IOException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+            }
+        }
+        return memo;
+    }
+
+    /**
+     * Opens stream of memo content. Long memo is read by chunks, so it is not loaded into memory.
+     *
+     * @param block number of first block
+     * @return stream of memo content
+     */
+    InputStream openMemoStream(long block) {
+        final long[] location = locate(block);
+        int inBlock = (int) (location[0] - block * blockSize);
+        if (inBlock + location[1] <= blockSize) {
+            return new ByteArrayInputStream(getBlock(block), inBlock, (int) location[1]);
+        }
+        return new InputStream() {
+            private long position = location[0];
+            private long rest = location[1];
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (rest <= 0) {
+                    return -1;
+                }
+                int count = (int) Math.min(Math.min(len, rest), STREAM_CHUNK_SIZE);
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, count);
+                readChannel(buffer, position);
+                int numRead = count - buffer.remaining();
+                if (numRead == 0) {
+                    rest = 0;
+                    return -1;
+                }
+                position += numRead;
+                rest -= numRead;
+                return numRead;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, rest);
+            }
+        };
+    }
+}
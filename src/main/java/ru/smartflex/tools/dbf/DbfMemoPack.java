@@ -0,0 +1,166 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes unused blocks of Foxpro memo file (PACK MEMO command of xBase). Records are read in order and memos
+ * referenced by them are copied into new memo file by large sequential writes. When new memo file is complete,
+ * numbers of blocks in records are changed in place, then new memo file replaces old one by atomic rename.
+ * If changing of records or renaming fails then old block numbers are written back, and new memo file is deleted
+ * only when they are restored (otherwise dbf file may point to blocks of new memo file).
+ * <br>
+ * Memos of records marked as deleted are kept, because such records may be recalled.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfMemoPack {
+
+    private File dbfFile;
+
+    DbfMemoPack(File dbfFile) {
+        if (!dbfFile.exists()) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS);
+        }
+        this.dbfFile = dbfFile;
+    }
+
+    /**
+     * Packs memo file.
+     *
+     * @return count of copied memos
+     */
+    int pack() {
+        DbfMemoFile memoFile = DbfMemoFile.forDbf(dbfFile);
+        if (memoFile == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_MISSED + dbfFile.getName());
+        }
+        if (memoFile.getFile().getName().toUpperCase().endsWith(".DBT")) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+        }
+        File packedFile = new File(memoFile.getFile().getParentFile(), memoFile.getFile().getName() + ".tmp");
+        packedFile.delete();
+
+        DbfIterator dbfIterator = new DbfIterator(dbfFile, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        dbfHeader.setMemoFile(memoFile);
+        List<DbfColumnPosition> memoColumns = new ArrayList<DbfColumnPosition>();
+        for (DbfColumn column : dbfHeader.getOrderedColumnList()) {
+            if (column.getDbfColumnType().isMemo()) {
+                memoColumns.add(column.getDbfColumnPosition());
+            }
+        }
+
+        DbfMemoWriter memoWriter = null;
+        DbfUpdater dbfUpdater = null;
+        // record number, index of memo column and old block number of every changed block number
+        List<long[]> changes = new ArrayList<long[]>();
+        boolean packed = false;
+        try {
+            // new memo file is written completely before any change of dbf file
+            memoWriter = new DbfMemoWriter(packedFile, memoFile.getBlockSize());
+            Map<Long, Long> movedBlocks = new HashMap<Long, Long>();
+            while (dbfIterator.hasMoreRecords()) {
+                DbfRecord dbfRecord = dbfIterator.nextRecord();
+                for (DbfColumnPosition dcp : memoColumns) {
+                    long block = dbfRecord.getMemoBlock(dcp);
+                    // the same memo may be referenced twice
+                    if (block != 0 && !movedBlocks.containsKey(block)) {
+                        movedBlocks.put(block, memoWriter.writeMemo(memoFile.readMemo(block),
+                                memoFile.getMemoType(block)));
+                    }
+                }
+            }
+            memoWriter.close();
+            memoFile.close();
+            dbfIterator.closeIterator();
+
+            dbfIterator = new DbfIterator(dbfFile, null);
+            dbfUpdater = new DbfUpdater(dbfFile, dbfHeader);
+            byte[] record = new byte[dbfHeader.getLengthRecord()];
+            int recNo = 0;
+            while (dbfIterator.hasMoreRecords()) {
+                DbfRecord dbfRecord = dbfIterator.nextRecord();
+                System.arraycopy(dbfRecord.getRecord(), 0, record, 0, record.length);
+                for (int i = 0; i < memoColumns.size(); i++) {
+                    DbfColumnPosition dcp = memoColumns.get(i);
+                    long block = dbfRecord.getMemoBlock(dcp);
+                    if (block != 0 && movedBlocks.get(block) != block) {
+                        changes.add(new long[]{recNo, i, block});
+                        DbfMemoWriter.fillBlockNumber(record, dcp, movedBlocks.get(block));
+                        dbfUpdater.updateBytes(recNo, record, dcp.getOffset(), dcp.getColumnLength());
+                    }
+                }
+                recNo++;
+            }
+            DbfUpdater updater = dbfUpdater;
+            dbfUpdater = null;
+            updater.close();
+
+            Files.move(packedFile.toPath(), memoFile.getFile().toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            packed = true;
+            return movedBlocks.size();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } finally {
+            dbfIterator.closeIterator();
+            memoFile.close();
+            if (!packed) {
+                if (memoWriter != null) {
+                    memoWriter.close();
+                }
+                closeQuietly(dbfUpdater);
+                // new memo file is kept if dbf file may point to its blocks
+                if (changes.isEmpty() || restoreBlocks(dbfHeader, memoColumns, changes)) {
+                    packedFile.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes old block numbers back into dbf file, so it points to old memo file again.
+     *
+     * @return <code>true</code> if all block numbers are restored
+     */
+    private boolean restoreBlocks(DbfHeader dbfHeader, List<DbfColumnPosition> memoColumns, List<long[]> changes) {
+        DbfUpdater dbfUpdater = null;
+        try {
+            dbfUpdater = new DbfUpdater(dbfFile, dbfHeader);
+            byte[] record = new byte[dbfHeader.getLengthRecord()];
+            for (long[] change : changes) {
+                DbfColumnPosition dcp = memoColumns.get((int) change[1]);
+                DbfMemoWriter.fillBlockNumber(record, dcp, change[2]);
+                dbfUpdater.updateBytes((int) change[0], record, dcp.getOffset(), dcp.getColumnLength());
+            }
+            DbfUpdater updater = dbfUpdater;
+            dbfUpdater = null;
+            updater.close();
+            return true;
+        } catch (DbfEngineException e) {
+            closeQuietly(dbfUpdater);
+            return false;
+        }
+    }
+
+    /**
+     * Closes updater after failure, so its error does not hide the first one.
+     */
+    private static void closeQuietly(DbfUpdater dbfUpdater) {
+        if (dbfUpdater != null) {
+            try {
+                dbfUpdater.close();
+            } catch (DbfEngineException e) {
+                // nothing to do
+            }
+        }
+    }
+}
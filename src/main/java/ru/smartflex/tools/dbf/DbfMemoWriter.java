@@ -0,0 +1,203 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writer of Foxpro memo file (.fpt). Memos are only appended: every memo takes whole blocks since the next free
+ * block. Blocks are collected in buffer and written by large sequential writes, and the header (next free block)
+ * is written at closing.
+ * <br>
+ * Memo may be written by several threads (see {@link DbfAppender#insertParallel(int, boolean, DbfRecordProducer)}).
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfMemoWriter {
+
+    static final int DEFAULT_BLOCK_SIZE = 64;
+    static final int MEMO_BUFFER_SIZE = 256 * 1024;
+
+    private static final int MEMO_HEADER_LENGTH = 512;
+    private static final int BLOCK_HEADER_LENGTH = 8;
+    private static final int MEMO_TYPE_TEXT = 1;
+
+    private FileChannel channel;
+    private int blockSize;
+    private long nextBlock;
+    private long bufferBlock;
+    private ByteBuffer buffer;
+
+    /**
+     * Opens memo file. New file is created if it is not existed, otherwise memos are appended after the last one.
+     *
+     * @param memoFile memo file
+     */
+    DbfMemoWriter(File memoFile) {
+        this(memoFile, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Opens memo file. Block size is used for new file only.
+     *
+     * @param memoFile  memo file
+     * @param blockSize size of block of new file
+     */
+    DbfMemoWriter(File memoFile, int blockSize) {
+        try {
+            boolean existed = memoFile.exists() && memoFile.length() >= MEMO_HEADER_LENGTH;
+            channel = new RandomAccessFile(memoFile, "rw").getChannel();
+            if (existed) {
+                ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_LENGTH);
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) == -1) {
+                        break;
+                    }
+                }
+                nextBlock = header.getInt(0) & 0xffffffffL;
+                this.blockSize = header.getShort(6) & 0xffff;
+                if (this.blockSize == 0) {
+                    throw new DbfEngineException(DbfConstants.EXCP_MEMO_FORMAT);
+                }
+            } else {
+                channel.truncate(0);
+                this.blockSize = blockSize;
+                nextBlock = (MEMO_HEADER_LENGTH + this.blockSize - 1) / this.blockSize;
+                writeHeader(MEMO_HEADER_LENGTH);
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+        bufferBlock = nextBlock;
+        buffer = ByteBuffer.allocate(Math.max(this.blockSize, MEMO_BUFFER_SIZE / this.blockSize * this.blockSize));
+    }
+
+    /**
+     * Returns memo file of dbf file, with the same name and .fpt extension.
+     */
+    static File memoFileFor(File dbfFile) {
+        String name = dbfFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 && name.substring(dot).equals(name.substring(dot).toLowerCase()) ? ".fpt" : ".FPT";
+        return new File(dbfFile.getParentFile(), base + extension);
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Writes number of memo block into memo field of record. Visual Foxpro keeps it as integer (field of 4 bytes),
+     * other dbf files keep it as text aligned to the right.
+     */
+    static void fillBlockNumber(byte[] record, DbfColumnPosition dcp, long block) {
+        int offset = dcp.getOffset();
+        if (dcp.getColumnLength() == 4) {
+            for (int i = 0; i < 4; i++) {
+                record[offset + i] = (byte) (block >> (8 * i));
+            }
+            return;
+        }
+        long rest = block;
+        for (int i = offset + dcp.getColumnLength() - 1; i >= offset; i--) {
+            if (rest > 0 || i == offset + dcp.getColumnLength() - 1) {
+                record[i] = (byte) ('0' + rest % 10);
+                rest /= 10;
+            } else {
+                record[i] = DbfConstants.DBF_REC_FILLSYMB;
+            }
+        }
+    }
+
+    /**
+     * Appends text memo.
+     *
+     * @param data content of memo
+     * @return number of first block of memo
+     */
+    synchronized long writeMemo(byte[] data) {
+        return writeMemo(data, MEMO_TYPE_TEXT);
+    }
+
+    /**
+     * Appends memo of given type (0 is picture, 1 is text).
+     *
+     * @param data content of memo
+     * @param type type of memo
+     * @return number of first block of memo
+     */
+    synchronized long writeMemo(byte[] data, int type) {
+        long block = nextBlock;
+        int blocks = (int) ((BLOCK_HEADER_LENGTH + (long) data.length + blockSize - 1) / blockSize);
+        int total = blocks * blockSize;
+        try {
+            if (buffer.remaining() < total) {
+                flushBuffer();
+            }
+            if (buffer.remaining() < total) {
+                // too long memo is written directly
+                ByteBuffer memo = ByteBuffer.allocate(total);
+                memo.putInt(type).putInt(data.length).put(data);
+                memo.clear();
+                write(memo, block * blockSize);
+                bufferBlock = block + blocks;
+            } else {
+                int start = buffer.position();
+                buffer.putInt(type).putInt(data.length).put(data);
+                // rest of last block is filled by zeros
+                while (buffer.position() < start + total) {
+                    buffer.put((byte) 0);
+                }
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+        nextBlock = block + blocks;
+        return block;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            write(buffer, bufferBlock * blockSize);
+            buffer.clear();
+        }
+        bufferBlock = nextBlock;
+    }
+
+    private void write(ByteBuffer data, long position) throws IOException {
+        long pos = position;
+        while (data.hasRemaining()) {
+            pos += channel.write(data, pos);
+        }
+    }
+
+    /**
+     * Writes next free block and block size into header. Rest of header is filled by zeros.
+     */
+    private void writeHeader(int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(length);
+        header.putInt(0, (int) nextBlock);
+        header.putShort(6, (short) blockSize);
+        write(header, 0);
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flushBuffer();
+            writeHeader(BLOCK_HEADER_LENGTH);
+            channel.close();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } finally {
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.smartflex.tools.dbf;
+
+import java.math.BigDecimal;
+
+/**
+ * Reusable parser of numeric field. It reads ASCII digits, sign and decimal point straight from
+ * record buffer into unscaled long value and scale, so there is no String object per field.
+ * Separators (comma and apostrophe) may be skipped for such bad numeric as: 1219,.0000
+ * <br>
+ * Values with exponent or with more than 18 digits are not parsed here. Caller has to use
+ * usual String parsing for them.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfNumber {
+
+    /**
+     * Field is empty (contains spaces or zeros only).
+     */
+    static final int EMPTY = 0;
+    /**
+     * Field is parsed.
+     */
+    static final int PARSED = 1;
+    /**
+     * Field is not parsed. It has to be parsed as String.
+     */
+    static final int UNPARSED = 2;
+
+    private static final int MAX_DIGITS = 18;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+
+    private static final double[] DOUBLE_POW10 = {1e0, 1e1, 1e2, 1e3, 1e4,
+            1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+            1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final float[] FLOAT_POW10 = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f,
+            1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    private long unscaled;
+    private int scale;
+    private boolean negative;
+    private boolean point;
+
+    /**
+     * Parses field of record.
+     *
+     * @param record     record buffer
+     * @param offset     offset of field
+     * @param length     length of field
+     * @param separators flag of skipping comma and apostrophe
+     * @return EMPTY, PARSED or UNPARSED
+     */
+    int parse(byte[] record, int offset, int length, boolean separators) {
+        int first = offset;
+        int last = offset + length - 1;
+        while (first <= last && (record[first] & 0xff) <= DbfConstants.DBF_REC_FILLSYMB) {
+            first++;
+        }
+        while (last >= first && (record[last] & 0xff) <= DbfConstants.DBF_REC_FILLSYMB) {
+            last--;
+        }
+        if (first > last) {
+            return EMPTY;
+        }
+
+        unscaled = 0;
+        scale = 0;
+        negative = false;
+        point = false;
+
+        int i = first;
+        if (record[i] == '-') {
+            negative = true;
+            i++;
+        } else if (record[i] == '+') {
+            i++;
+        }
+        int digits = 0;
+        for (; i <= last; i++) {
+            byte b = record[i];
+            if (b >= '0' && b <= '9') {
+                if (digits == MAX_DIGITS) {
+                    return UNPARSED;
+                }
+                digits++;
+                unscaled = unscaled * 10 + (b - '0');
+                if (point) {
+                    scale++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else if (!separators || (b != ',' && b != '\'')) {
+                return UNPARSED;
+            }
+        }
+        if (digits == 0) {
+            return UNPARSED;
+        }
+        return PARSED;
+    }
+
+    /**
+     * Returns true if value is written without decimal point.
+     */
+    boolean isIntegral() {
+        return !point;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    long longValue() {
+        return negative ? -unscaled : unscaled;
+    }
+
+    boolean isExactDouble() {
+        return unscaled <= MAX_EXACT_DOUBLE && scale < DOUBLE_POW10.length;
+    }
+
+    /**
+     * Returns double value. Both unscaled value and power of ten are exact doubles, so their division
+     * gives the same correctly rounded value as Double.parseDouble.
+     */
+    double doubleValue() {
+        double value = unscaled / DOUBLE_POW10[scale];
+        return negative ? -value : value;
+    }
+
+    boolean isExactFloat() {
+        return unscaled <= MAX_EXACT_FLOAT && scale < FLOAT_POW10.length;
+    }
+
+    float floatValue() {
+        float value = unscaled / FLOAT_POW10[scale];
+        return negative ? -value : value;
+    }
+
+    BigDecimal bigDecimalValue() {
+        return BigDecimal.valueOf(longValue(), scale);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.smartflex.tools.dbf;
+
+/**
+ * Enumeration of the comparison operators of {@link DbfFilter}
+ *
+ * @author galisha
+ * @since 1.13
+ */
+public enum DbfOperator {
+    EQ, NE, LT, LE, GT, GE,
+    /**
+     * Prefix of character field.
+     */
+    STARTS_WITH;
+
+    boolean accept(int compare) {
+        switch (this) {
+            case EQ:
+            case STARTS_WITH:
+                return compare == 0;
+            case NE:
+                return compare != 0;
+            case LT:
+                return compare < 0;
+            case LE:
+                return compare <= 0;
+            case GT:
+                return compare > 0;
+            case GE:
+                return compare >= 0;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Removes records marked as deleted (PACK command of xBase). File is read by large blocks and live records
+ * are moved down in place, so write position never passes read position. Then file is truncated,
+ * end of file marker is written and record amount of header is updated. Memo file is not changed.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfPack {
+
+    static final int PACK_BLOCK_SIZE = 1024 * 1024;
+
+    private File dbfFile;
+
+    DbfPack(File dbfFile) {
+        if (!dbfFile.exists()) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS);
+        }
+        this.dbfFile = dbfFile;
+    }
+
+    /**
+     * Packs dbf file.
+     *
+     * @return count of removed records
+     */
+    int pack() {
+        DbfIterator dbfIterator = new DbfIterator(dbfFile, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        dbfIterator.closeIterator();
+
+        int lengthRecord = dbfHeader.getLengthRecord();
+        int countRecords = dbfHeader.getCountRecords();
+        long firstRecordPosition = dbfHeader.getFirstRecordPosition();
+        int blockRecords = Math.max(1, PACK_BLOCK_SIZE / lengthRecord);
+        byte[] block = new byte[blockRecords * lengthRecord];
+
+        RandomAccessFile randomFile = null;
+        try {
+            randomFile = new RandomAccessFile(dbfFile, "rw");
+            FileChannel channel = randomFile.getChannel();
+
+            long writePosition = firstRecordPosition;
+            int live = 0;
+            for (int first = 0; first < countRecords; first += blockRecords) {
+                int rows = Math.min(blockRecords, countRecords - first);
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, rows * lengthRecord);
+                long readPosition = firstRecordPosition + (long) first * lengthRecord;
+                while (buffer.hasRemaining()) {
+                    int numRead = channel.read(buffer, readPosition + buffer.position());
+                    if (numRead == -1) {
+                        throw new DbfEngineException(DbfConstants.EXCP_REC_UNEXP + first);
+                    }
+                }
+
+                int kept = 0;
+                for (int row = 0; row < rows; row++) {
+                    int offset = row * lengthRecord;
+                    if (block[offset] != DbfConstants.DELETED_MARKER) {
+                        if (kept != row) {
+                            System.arraycopy(block, offset, block, kept * lengthRecord, lengthRecord);
+                        }
+                        kept++;
+                    }
+                }
+                // block is not written if there were no deleted records before it
+                if (kept > 0 && (writePosition != readPosition || kept != rows)) {
+                    buffer = ByteBuffer.wrap(block, 0, kept * lengthRecord);
+                    long pos = writePosition;
+                    while (buffer.hasRemaining()) {
+                        pos += channel.write(buffer, pos);
+                    }
+                }
+                writePosition += (long) kept * lengthRecord;
+                live += kept;
+            }
+
+            int removed = countRecords - live;
+            if (removed > 0) {
+                channel.truncate(writePosition);
+                channel.write(ByteBuffer.wrap(new byte[]{DbfConstants.DBF_END_OF_FILE}), writePosition);
+
+                byte[] dateAndCount = new byte[7];
+                DbfAppender.fillDateAndCount(dateAndCount, 0, live);
+                ByteBuffer buffer = ByteBuffer.wrap(dateAndCount);
+                long pos = 1;
+                while (buffer.hasRemaining()) {
+                    pos += channel.write(buffer, pos);
+                }
+            }
+            return removed;
+        } catch (FileNotFoundException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS, e);
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } finally {
+            if (randomFile != null) {
+                try {
+                    randomFile.close();
+                } catch (IOException e) {
+                    // nothing to do
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Inserts records formatted by several producer threads. Every producer has own statement which hands off
+ * blocks of whole records to calling thread, and the calling thread is the single writer of dbf file.
+ * Every producer has bounded pool of blocks, so the memory is limited by
+ * <code>producers * BLOCK_COUNT * blockSize</code>.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfParallelInsert {
+
+    static final int BLOCK_COUNT = 3;
+
+    private static class Block {
+        private byte[] data = new byte[0];
+        private int length = 0;
+        private int producer;
+        private boolean last = false;
+        private Throwable error = null;
+    }
+
+    /**
+     * Stream of producer statement. Written bytes are copied into free block of producer pool.
+     */
+    private class BlockOutputStream extends OutputStream {
+        private int producer;
+
+        BlockOutputStream(int producer) {
+            this.producer = producer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            Block block = takeFreeBlock(producer);
+            if (block.data.length < len) {
+                block.data = new byte[len];
+            }
+            System.arraycopy(b, off, block.data, 0, len);
+            block.length = len;
+            post(block);
+        }
+
+        void finish(Throwable error) throws IOException {
+            Block block = takeFreeBlock(producer);
+            block.length = 0;
+            block.last = true;
+            block.error = error;
+            post(block);
+        }
+    }
+
+    private DbfHeader dbfHeader;
+    private DbfCodePages dbfCodePage;
+    private DbfAppender dbfAppender;
+    private int producers;
+    private boolean ordered;
+    private DbfRecordProducer producer;
+
+    private List<BlockingQueue<Block>> freeBlocks;
+    private List<BlockingQueue<Block>> filledBlocks;
+
+    DbfParallelInsert(DbfHeader dbfHeader, DbfCodePages dbfCodePage, DbfAppender dbfAppender,
+                      int producers, boolean ordered, DbfRecordProducer producer) {
+        if (producers <= 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_INSERT);
+        }
+        this.dbfHeader = dbfHeader;
+        this.dbfCodePage = dbfCodePage;
+        this.dbfAppender = dbfAppender;
+        this.producers = producers;
+        this.ordered = ordered;
+        this.producer = producer;
+    }
+
+    private Block takeFreeBlock(int producerNumber) throws IOException {
+        try {
+            Block block = freeBlocks.get(producerNumber).take();
+            block.producer = producerNumber;
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private void post(Block block) throws IOException {
+        try {
+            filledBlocks.get(ordered ? block.producer : 0).put(block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    void insert() {
+        freeBlocks = new ArrayList<BlockingQueue<Block>>(producers);
+        filledBlocks = new ArrayList<BlockingQueue<Block>>(producers);
+        for (int i = 0; i < producers; i++) {
+            BlockingQueue<Block> pool = new ArrayBlockingQueue<Block>(BLOCK_COUNT);
+            for (int j = 0; j < BLOCK_COUNT; j++) {
+                pool.add(new Block());
+            }
+            freeBlocks.add(pool);
+            if (ordered || i == 0) {
+                filledBlocks.add(new LinkedBlockingQueue<Block>());
+            }
+        }
+
+        OutputStream dbfStream = dbfAppender.getBodyStream();
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            for (int i = 0; i < producers; i++) {
+                final int producerNumber = i;
+                executor.execute(new Runnable() {
+                    public void run() {
+                        produce(producerNumber);
+                    }
+                });
+            }
+
+            int finished = 0;
+            int queue = 0;
+            while (finished < producers) {
+                Block block = filledBlocks.get(queue).take();
+                if (block.last) {
+                    if (block.error != null) {
+                        if (block.error instanceof DbfEngineException) {
+                            throw (DbfEngineException) block.error;
+                        }
+                        throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_INSERT, block.error);
+                    }
+                    finished++;
+                    if (ordered) {
+                        queue++;
+                    }
+                } else {
+                    dbfStream.write(block.data, 0, block.length);
+                    dbfAppender.registerNewRecords(block.length / dbfHeader.getLengthRecord());
+                }
+                freeBlocks.get(block.producer).put(block);
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_INSERT, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void produce(int producerNumber) {
+        BlockOutputStream stream = new BlockOutputStream(producerNumber);
+        Throwable error = null;
+        try {
+            DbfStatement statement = new DbfStatement(dbfHeader, dbfCodePage, null, stream);
+            statement.setMemoAppender(dbfAppender);
+            producer.produceRecords(producerNumber, statement);
+            statement.executeBatch();
+        } catch (Throwable e) {
+            error = e;
+        }
+        try {
+            stream.finish(error);
+        } catch (IOException e) {
+            // writer is stopped already
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits dbf file into ranges of records and handles them in parallel.
+ * Records have fixed length, so bounds of ranges are calculated from dbf header.
+ * Every part is read by own iterator through positional reads of one shared file channel.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfParallelScan<T> {
+
+    private File dbfFile;
+    private String enc;
+    private int partitions;
+    private DbfPartitionHandler<T> handler;
+
+    DbfParallelScan(File dbfFile, String enc, int partitions, DbfPartitionHandler<T> handler) {
+        if (partitions <= 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_SCAN);
+        }
+        this.dbfFile = dbfFile;
+        this.enc = enc;
+        this.partitions = partitions;
+        this.handler = handler;
+    }
+
+    List<T> scan() {
+        DbfIterator dbfIterator = new DbfIterator(dbfFile, enc);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        ExecutorService executor = null;
+        try {
+            final FileChannel channel = ((FileInputStream) dbfHeader.getDbfStream()).getChannel();
+            final DbfHeader header = dbfHeader;
+
+            int countRecords = dbfHeader.getCountRecords();
+            int parts = Math.max(1, Math.min(partitions, countRecords));
+            int partSize = countRecords / parts;
+            int rest = countRecords % parts;
+
+            executor = Executors.newFixedThreadPool(parts);
+            List<Future<T>> futures = new ArrayList<Future<T>>(parts);
+            int first = 0;
+            for (int i = 0; i < parts; i++) {
+                final int firstRecord = first;
+                final int lastRecord = first + partSize + (i < rest ? 1 : 0);
+                futures.add(executor.submit(new Callable<T>() {
+                    public T call() {
+                        DbfIterator partIterator = new DbfIterator(header, channel, firstRecord, lastRecord);
+                        return handler.handlePartition(partIterator);
+                    }
+                }));
+                first = lastRecord;
+            }
+
+            List<T> results = new ArrayList<T>(parts);
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_SCAN, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DbfEngineException) {
+                throw (DbfEngineException) e.getCause();
+            }
+            throw new DbfEngineException(DbfConstants.EXCP_PARALLEL_SCAN, e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            dbfIterator.closeIterator();
+        }
+    }
+}
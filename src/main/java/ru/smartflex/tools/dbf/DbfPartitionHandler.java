@@ -0,0 +1,37 @@
+package ru.smartflex.tools.dbf;
+
+/**
+ * Callback for parallel scan of dbf file. It is invoked once per part of file in own thread.
+ * Sample of usage:
+ *
+ * <pre>
+ * List&lt;Integer&gt; counts = DbfEngine.scanParallel(dbfFile, null, 4,
+ * 		new DbfPartitionHandler&lt;Integer&gt;() {
+ * 			public Integer handlePartition(DbfIterator dbfIterator) {
+ * 				int count = 0;
+ * 				while (dbfIterator.hasMoreRecords()) {
+ * 					DbfRecord dbfRecord = dbfIterator.nextRecord();
+ * 					if (!dbfRecord.isDeleted()) {
+ * 						count++;
+ * 					}
+ * 				}
+ * 				return count;
+ * 			}
+ * 		});
+ * </pre>
+ *
+ * @param <T> type of part result
+ * @author galisha
+ * @since 1.13
+ */
+public interface DbfPartitionHandler<T> {
+
+    /**
+     * Handles records of one part of dbf file.
+     *
+     * @param dbfIterator iterator over records of part; it has own record buffer
+     * @return result of part handling
+     * @since 1.13
+     */
+    T handlePartition(DbfIterator dbfIterator);
+}
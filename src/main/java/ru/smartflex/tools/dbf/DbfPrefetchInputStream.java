@@ -0,0 +1,156 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream with asynchronous read-ahead. Background thread fills large blocks from source stream while
+ * consumer reads previous block. Blocks are handed off through bounded ring of buffers, so the memory is limited by
+ * <code>blockCount * blockSize</code>.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfPrefetchInputStream extends InputStream {
+
+    private static class Block {
+        private byte[] data;
+        private int length = 0;
+        private IOException error = null;
+
+        Block(int size) {
+            data = new byte[size];
+        }
+    }
+
+    private InputStream source;
+    private BlockingQueue<Block> freeBlocks;
+    private BlockingQueue<Block> filledBlocks;
+    private Thread prefetchThread;
+    private volatile boolean closed = false;
+
+    private Block current = null;
+    private int position = 0;
+    private boolean lastBlock = false;
+
+    /**
+     * Creates stream and starts prefetch thread.
+     *
+     * @param source     source stream
+     * @param blockSize  size of block
+     * @param blockCount count of blocks (two at least)
+     */
+    DbfPrefetchInputStream(InputStream source, int blockSize, int blockCount) {
+        this.source = source;
+        int count = Math.max(2, blockCount);
+        freeBlocks = new ArrayBlockingQueue<Block>(count);
+        filledBlocks = new ArrayBlockingQueue<Block>(count);
+        for (int i = 0; i < count; i++) {
+            freeBlocks.add(new Block(blockSize));
+        }
+        prefetchThread = new Thread(new Runnable() {
+            public void run() {
+                prefetch();
+            }
+        }, "DbfEngine-prefetch");
+        prefetchThread.setDaemon(true);
+        prefetchThread.start();
+    }
+
+    /**
+     * Fills blocks until end of source stream. Block which is not filled completely is the last one.
+     */
+    private void prefetch() {
+        try {
+            boolean next = true;
+            while (next && !closed) {
+                Block block = freeBlocks.take();
+                block.length = 0;
+                block.error = null;
+                try {
+                    while (block.length < block.data.length) {
+                        int numRead = source.read(block.data, block.length, block.data.length - block.length);
+                        if (numRead == -1) {
+                            break;
+                        }
+                        block.length += numRead;
+                    }
+                } catch (IOException e) {
+                    block.error = e;
+                }
+                next = block.error == null && block.length == block.data.length;
+                filledBlocks.put(block);
+            }
+        } catch (InterruptedException e) {
+            // stream is closed
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (lastBlock) {
+            return false;
+        }
+        if (current != null) {
+            freeBlocks.add(current);
+            current = null;
+        }
+        Block block;
+        try {
+            block = filledBlocks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (block.error != null) {
+            lastBlock = true;
+            throw block.error;
+        }
+        current = block;
+        position = 0;
+        if (block.length < block.data.length) {
+            lastBlock = true;
+        }
+        return block.length > 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((current == null || position >= current.length) && !nextBlock()) {
+            return -1;
+        }
+        return current.data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if ((current == null || position >= current.length) && !nextBlock()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        if (current == null) {
+            return 0;
+        }
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            prefetchThread.interrupt();
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.smartflex.tools.dbf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Set of columns which are read from dbf file. Byte ranges of projected columns (and deleted flag) are merged
+ * into runs, so only those parts of record are copied. Field <code>_NullFlags</code> is copied too if projected
+ * columns have null bits or bits of variable length.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfProjection {
+
+    private List<DbfColumn> columns = new ArrayList<DbfColumn>();
+    private boolean[] projected;
+    private int[] runOffsets;
+    private int[] runLengths;
+
+    DbfProjection(DbfHeader dbfHeader, String... columnNames) {
+        projected = new boolean[dbfHeader.getCountColumns()];
+        for (String columnName : columnNames) {
+            DbfColumn column = dbfHeader.getDbfColumn(columnName);
+            if (!projected[column.getColumnIndex()]) {
+                projected[column.getColumnIndex()] = true;
+                columns.add(column);
+            }
+        }
+        if (columns.size() == 0) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_ADD);
+        }
+        defineRuns(dbfHeader);
+    }
+
+    DbfProjection(DbfHeader dbfHeader, Collection<DbfColumn> dbfColumns) {
+        projected = new boolean[dbfHeader.getCountColumns()];
+        for (DbfColumn column : dbfColumns) {
+            if (!projected[column.getColumnIndex()]) {
+                projected[column.getColumnIndex()] = true;
+                columns.add(column);
+            }
+        }
+        defineRuns(dbfHeader);
+    }
+
+    private void defineRuns(DbfHeader dbfHeader) {
+        List<DbfColumn> sorted = new ArrayList<DbfColumn>(columns);
+        DbfColumn nullFlags = dbfHeader.getNullFlagsColumn();
+        if (nullFlags != null && !projected[nullFlags.getColumnIndex()] && hasNullFlagsBits()) {
+            // bits of projected columns are kept in _NullFlags field, so it is read, but it is not projected
+            sorted.add(nullFlags);
+        }
+        Collections.sort(sorted, new Comparator<DbfColumn>() {
+            public int compare(DbfColumn o1, DbfColumn o2) {
+                return o1.getDbfColumnPosition().getOffset() - o2.getDbfColumnPosition().getOffset();
+            }
+        });
+        int[] offsets = new int[sorted.size() + 1];
+        int[] lengths = new int[sorted.size() + 1];
+        // deleted flag
+        offsets[0] = 0;
+        lengths[0] = 1;
+        int count = 1;
+        for (DbfColumn column : sorted) {
+            DbfColumnPosition dcp = column.getDbfColumnPosition();
+            int last = count - 1;
+            if (offsets[last] + lengths[last] == dcp.getOffset()) {
+                lengths[last] += dcp.getColumnLength();
+            } else {
+                offsets[count] = dcp.getOffset();
+                lengths[count] = dcp.getColumnLength();
+                count++;
+            }
+        }
+        runOffsets = new int[count];
+        runLengths = new int[count];
+        System.arraycopy(offsets, 0, runOffsets, 0, count);
+        System.arraycopy(lengths, 0, runLengths, 0, count);
+    }
+
+    private boolean hasNullFlagsBits() {
+        for (DbfColumn column : columns) {
+            DbfColumnPosition dcp = column.getDbfColumnPosition();
+            if (dcp.getNullByte() >= 0 || dcp.getVarLengthByte() >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns projected columns in order of projection.
+     */
+    List<DbfColumn> getColumns() {
+        return columns;
+    }
+
+    boolean isProjected(DbfColumn column) {
+        return projected[column.getColumnIndex()];
+    }
+
+    int getRunCount() {
+        return runOffsets.length;
+    }
+
+    int getRunOffset(int run) {
+        return runOffsets[run];
+    }
+
+    int getRunLength(int run) {
+        return runLengths[run];
+    }
+}
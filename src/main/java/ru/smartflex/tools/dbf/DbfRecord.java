@@ -1,7 +1,13 @@
 package ru.smartflex.tools.dbf;
 
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -19,17 +25,31 @@ public class DbfRecord {
     private DbfHeader dbfHeader;
     private Map<String, DbfColumnPosition> mapColumnPos = new HashMap<String, DbfColumnPosition>();
     private Calendar cal;
+    private DbfNumber number = new DbfNumber();
+    private DbfCharTable charTable;
+    private DbfProjection projection = null;
     private int currentRecord = 1;
     private java.text.SimpleDateFormat dateToStr = new java.text.SimpleDateFormat(
             "yyyy-MM-dd");
 
     private static final byte EMPTY_SYMBOL_SPACE = 0x20;
     private static final byte EMPTY_SYMBOL_ZERO = 0x0;
+    private static final int CURRENCY_SCALE = 4;
+
+    private static final String[] NUMBER_TYPES = {"N", "F", "I", "B", "Y"};
+    private static final DbfColumnTypes[] NUMBER_COLUMN_TYPES = {DbfColumnTypes.Numeric, DbfColumnTypes.Float,
+            DbfColumnTypes.Integer, DbfColumnTypes.Double, DbfColumnTypes.Currency};
+    private static final String[] MEMO_TYPES = {"M", "G", "W"};
+    private static final DbfColumnTypes[] MEMO_COLUMN_TYPES = {DbfColumnTypes.Memo, DbfColumnTypes.General,
+            DbfColumnTypes.Blob};
 
     DbfRecord(byte[] record, DbfHeader dbfHeader) {
         this.record = record;
         this.dbfHeader = dbfHeader;
         cal = Calendar.getInstance();
+        if (dbfHeader.getDbfCodePages() != null) {
+            charTable = dbfHeader.getDbfCodePages().getCharTable();
+        }
     }
 
     /**
@@ -42,7 +62,26 @@ public class DbfRecord {
      * @since 1.00
      */
     public String getString(String colName) {
-        DbfColumnPosition dbfColumnPos = definePosition(colName, "C");
+        return getString(definePosition(colName, "C", "V"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>String</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return string object
+     * @since 1.13
+     */
+    public String getString(DbfColumn column) {
+        return getString(columnPosition(column, DbfColumnTypes.Character, DbfColumnTypes.Varchar));
+    }
+
+    private String getString(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return null;
+        }
         String ret = handleField(dbfColumnPos);
         if (ret != null && ret.trim().length() == 0) {
             ret = null;
@@ -52,8 +91,11 @@ public class DbfRecord {
 
     private String handleField(DbfColumnPosition dbfColumnPos) {
         String ret = null;
-        int indexLast = dbfColumnPos.getOffset()
-                + dbfColumnPos.getColumnLength() - 1;
+        int length = getValueLength(dbfColumnPos);
+        if (length == 0) {
+            return null;
+        }
+        int indexLast = dbfColumnPos.getOffset() + length - 1;
         do {
             if (record[indexLast] == EMPTY_SYMBOL_SPACE
                     || record[indexLast] == EMPTY_SYMBOL_ZERO) {
@@ -63,7 +105,10 @@ public class DbfRecord {
             }
         } while (indexLast > dbfColumnPos.getOffset());
 
-        if (indexLast >= dbfColumnPos.getOffset()) {
+        if (indexLast >= dbfColumnPos.getOffset() && charTable != null) {
+            ret = charTable.decode(record, dbfColumnPos.getOffset(), indexLast
+                    - dbfColumnPos.getOffset() + 1);
+        } else if (indexLast >= dbfColumnPos.getOffset()) {
             try {
                 ret = new String(record, dbfColumnPos.getOffset(), indexLast
                         - dbfColumnPos.getOffset() + 1, dbfHeader.getCodePage());
@@ -80,12 +125,45 @@ public class DbfRecord {
      * programming language.
      *
      * @param colName xBase field name
-     * @return int value
+     * @return int value or 0 for empty or null field (see {@link #isNull(String)})
      * @since 1.00
      */
     public int getInt(String colName) {
+        return getInt(definePosition(colName, "N", "I"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>int</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return int value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public int getInt(DbfColumn column) {
+        return getInt(columnPosition(column, DbfColumnTypes.Numeric, DbfColumnTypes.Integer));
+    }
+
+    private int getInt(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        if (dbfColumnPos.getBinaryType() == DbfColumnTypes.Integer) {
+            return DbfHelper.readIntLE(record, dbfColumnPos.getOffset());
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), false);
+        if (status == DbfNumber.EMPTY) {
+            return 0;
+        }
+        if (status == DbfNumber.PARSED && number.isIntegral()) {
+            long value = number.longValue();
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+        }
         int ret = 0;
-        DbfColumnPosition dbfColumnPos = definePosition(colName, "N");
         String str = handleField(dbfColumnPos);
         try {
             if (str != null) {
@@ -102,18 +180,99 @@ public class DbfRecord {
         return ret;
     }
 
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>long</code> in the Java
+     * programming language.
+     *
+     * @param colName xBase field name
+     * @return long value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public long getLong(String colName) {
+        return getLong(definePosition(colName, "N", "I"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>long</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return long value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public long getLong(DbfColumn column) {
+        return getLong(columnPosition(column, DbfColumnTypes.Numeric, DbfColumnTypes.Integer));
+    }
+
+    private long getLong(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        if (dbfColumnPos.getBinaryType() == DbfColumnTypes.Integer) {
+            return DbfHelper.readIntLE(record, dbfColumnPos.getOffset());
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), false);
+        if (status == DbfNumber.EMPTY) {
+            return 0;
+        }
+        if (status == DbfNumber.PARSED && number.isIntegral()) {
+            return number.longValue();
+        }
+        String str = handleField(dbfColumnPos);
+        try {
+            return Long.parseLong(str.trim());
+        } catch (NumberFormatException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM + ": "
+                    + str + DbfConstants.EXCP_CURR_REC_INFO
+                    + String.valueOf(this.currentRecord));
+        }
+    }
+
     /**
      * Retrieves the value of the designated column in the current record of
      * this <code>DbfRecord</code> object as a <code>short</code> in the Java
      * programming language.
      *
      * @param colName xBase field name
-     * @return short value
+     * @return short value or 0 for empty or null field (see {@link #isNull(String)})
      * @since 1.00
      */
     public short getShort(String colName) {
+        return getShort(definePosition(colName, "N"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>short</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return short value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public short getShort(DbfColumn column) {
+        return getShort(columnPosition(column, DbfColumnTypes.Numeric));
+    }
+
+    private short getShort(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), false);
+        if (status == DbfNumber.EMPTY) {
+            return 0;
+        }
+        if (status == DbfNumber.PARSED && number.isIntegral()) {
+            long value = number.longValue();
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                return (short) value;
+            }
+        }
         short ret = 0;
-        DbfColumnPosition dbfColumnPos = definePosition(colName, "N");
         String str = handleField(dbfColumnPos);
         try {
             if (str != null) {
@@ -136,12 +295,31 @@ public class DbfRecord {
      * programming language.
      *
      * @param colName xBase field name
-     * @return boolean value
+     * @return boolean value or <code>false</code> for null field (see {@link #isNull(String)})
      * @since 1.00
      */
     public boolean getBoolean(String colName) {
+        return getBoolean(definePosition(colName, "L"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>boolean</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return boolean value or <code>false</code> for null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public boolean getBoolean(DbfColumn column) {
+        return getBoolean(columnPosition(column, DbfColumnTypes.Logical));
+    }
+
+    private boolean getBoolean(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return false;
+        }
         boolean flag = false;
-        DbfColumnPosition dbfColumnPos = definePosition(colName, "L");
         if (record[dbfColumnPos.getOffset()] == DbfConstants.LOGICAL_TRUE) {
             flag = true;
         }
@@ -158,18 +336,44 @@ public class DbfRecord {
      * @since 1.00
      */
     public BigDecimal getBigDecimal(String colName) {
+        return getBigDecimal(definePosition(colName, "N", "Y"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>BigDecimal</code> in the
+     * Java programming language.
+     * The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return BigDecimal object
+     * @since 1.13
+     */
+    public BigDecimal getBigDecimal(DbfColumn column) {
+        return getBigDecimal(columnPosition(column, DbfColumnTypes.Numeric, DbfColumnTypes.Currency));
+    }
+
+    private BigDecimal getBigDecimal(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return null;
+        }
+        if (dbfColumnPos.getBinaryType() == DbfColumnTypes.Currency) {
+            return BigDecimal.valueOf(DbfHelper.readLongLE(record, dbfColumnPos.getOffset()), CURRENCY_SCALE);
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), true);
+        if (status == DbfNumber.EMPTY) {
+            return null;
+        }
+        if (status == DbfNumber.PARSED) {
+            return number.bigDecimalValue();
+        }
         BigDecimal bdl = null;
-        String str = getStringValue(colName, "N");
+        String str = handleField(dbfColumnPos);
         if (str != null) {
             try {
-                str = str.trim();
+                str = removeSeparators(str.trim());
                 if (str.length() > 0) {
-                    if (str.contains(",")) {
-                        str = str.replace(",", "");
-                    }
-                    if (str.contains("'")) {
-                        str = str.replace("'", "");
-                    }
                     bdl = new BigDecimal(str);
                 }
             } catch (NumberFormatException e) {
@@ -181,18 +385,57 @@ public class DbfRecord {
         return bdl;
     }
 
+    private String removeSeparators(String str) {
+        String ret = str;
+        if (ret.contains(",")) {
+            ret = ret.replace(",", "");
+        }
+        if (ret.contains("'")) {
+            ret = ret.replace("'", "");
+        }
+        return ret;
+    }
+
     /**
      * Retrieves the value of the designated column in the current record of
      * this <code>DbfRecord</code> object as a <code>float</code> in the Java
      * programming language.
      *
      * @param colName xBase field name
-     * @return float value
+     * @return float value or 0 for empty or null field (see {@link #isNull(String)})
      * @since 1.00
      */
     public float getFloat(String colName) {
+        return getFloat(definePosition(colName, "F"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>float</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return float value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public float getFloat(DbfColumn column) {
+        return getFloat(columnPosition(column, DbfColumnTypes.Float));
+    }
+
+    private float getFloat(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), false);
+        if (status == DbfNumber.EMPTY) {
+            return 0;
+        }
+        if (status == DbfNumber.PARSED && number.isExactFloat()) {
+            return number.floatValue();
+        }
         float ret = 0;
-        String str = getStringValue(colName, "F");
+        String str = handleField(dbfColumnPos);
         if (str != null) {
             try {
                 str = str.trim();
@@ -208,6 +451,64 @@ public class DbfRecord {
         return ret;
     }
 
+    /**
+     * Retrieves the value of the designated numeric (N), float (F), integer (I), double (B) or currency (Y)
+     * column in the current record of this <code>DbfRecord</code> object as a <code>double</code> in the Java
+     * programming language.
+     *
+     * @param colName xBase field name
+     * @return double value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public double getDouble(String colName) {
+        return getDouble(definePosition(colName, NUMBER_TYPES));
+    }
+
+    /**
+     * Retrieves the value of the designated numeric (N), float (F), integer (I), double (B) or currency (Y)
+     * column in the current record of this <code>DbfRecord</code> object as a <code>double</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return double value or 0 for empty or null field (see {@link #isNull(String)})
+     * @since 1.13
+     */
+    public double getDouble(DbfColumn column) {
+        return getDouble(columnPosition(column, NUMBER_COLUMN_TYPES));
+    }
+
+    private double getDouble(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        DbfColumnTypes binaryType = dbfColumnPos.getBinaryType();
+        if (binaryType == DbfColumnTypes.Double) {
+            return Double.longBitsToDouble(DbfHelper.readLongLE(record, dbfColumnPos.getOffset()));
+        }
+        if (binaryType == DbfColumnTypes.Integer) {
+            return DbfHelper.readIntLE(record, dbfColumnPos.getOffset());
+        }
+        if (binaryType == DbfColumnTypes.Currency) {
+            return DbfHelper.readLongLE(record, dbfColumnPos.getOffset()) / 10000d;
+        }
+        int status = number.parse(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength(), true);
+        if (status == DbfNumber.EMPTY) {
+            return 0;
+        }
+        if (status == DbfNumber.PARSED && number.isExactDouble()) {
+            return number.doubleValue();
+        }
+        String str = handleField(dbfColumnPos);
+        try {
+            return Double.parseDouble(removeSeparators(str.trim()));
+        } catch (NumberFormatException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM
+                    + ": " + str + DbfConstants.EXCP_CURR_REC_INFO
+                    + String.valueOf(this.currentRecord));
+        }
+    }
+
     /**
      * Retrieves the value of the designated column in the current record of
      * this <code>DbfRecord</code> object as a <code>Date</code> in the Java
@@ -218,36 +519,359 @@ public class DbfRecord {
      * @since 1.00
      */
     public Date getDate(String colName) {
-        Date date = null;
-        DbfColumnPosition dbfColumnPos = definePosition(colName, "D");
-        String str = handleField(dbfColumnPos);
-        if (str != null) {
-            str = str.trim();
-            if (str.length() > 0) {
-                if (str.trim().length() != 8) {
-                    throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + ": "
-                            + str + DbfConstants.EXCP_CURR_REC_INFO
-                            + String.valueOf(this.currentRecord));
-                } else {
-                    String year = new String(record, dbfColumnPos.getOffset(), 4);
-                    String mm = new String(record, dbfColumnPos.getOffset() + 4, 2);
-                    String dd = new String(record, dbfColumnPos.getOffset() + 6, 2);
-                    try {
-                        int iYear = Integer.parseInt(year);
-                        int iMm = Integer.parseInt(mm) - 1;
-                        int iDd = Integer.parseInt(dd);
-                        cal.clear();
-                        cal.set(iYear, iMm, iDd);
-                        date = cal.getTime();
-                    } catch (NumberFormatException e) {
-                        throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM
-                                + ": " + str + DbfConstants.EXCP_CURR_REC_INFO
-                                + String.valueOf(this.currentRecord));
-                    }
-                }
+        return getDate(definePosition(colName, "D"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>Date</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return Date object
+     * @since 1.13
+     */
+    public Date getDate(DbfColumn column) {
+        return getDate(columnPosition(column, DbfColumnTypes.Date));
+    }
+
+    private Date getDate(DbfColumnPosition dbfColumnPos) {
+        // null date is 0 as empty date
+        int value = getDateValue(dbfColumnPos);
+        if (value == 0) {
+            return null;
+        }
+        cal.clear();
+        cal.set(value / 10000, value / 100 % 100 - 1, value % 100);
+        return cal.getTime();
+    }
+
+    /**
+     * Retrieves the value of the designated date column in the current record of
+     * this <code>DbfRecord</code> object as <code>int</code> value in form of yyyymmdd (for example 19120102).
+     * There is no object creation, so such values are suitable for fast comparison and filtering.
+     *
+     * @param colName xBase field name
+     * @return date as yyyymmdd value or 0 for empty or null date
+     * @since 1.13
+     */
+    public int getDateAsInt(String colName) {
+        return getDateValue(definePosition(colName, "D"));
+    }
+
+    /**
+     * Retrieves the value of the designated date column in the current record of
+     * this <code>DbfRecord</code> object as <code>int</code> value in form of yyyymmdd (for example 19120102).
+     * There is no object creation, so such values are suitable for fast comparison and filtering.
+     * The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return date as yyyymmdd value or 0 for empty or null date
+     * @since 1.13
+     */
+    public int getDateAsInt(DbfColumn column) {
+        return getDateValue(columnPosition(column, DbfColumnTypes.Date));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>LocalDate</code> in the Java
+     * programming language.
+     *
+     * @param colName xBase field name
+     * @return LocalDate object
+     * @since 1.13
+     */
+    public LocalDate getLocalDate(String colName) {
+        return getLocalDate(definePosition(colName, "D"));
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current record of
+     * this <code>DbfRecord</code> object as a <code>LocalDate</code> in the Java
+     * programming language. The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return LocalDate object
+     * @since 1.13
+     */
+    public LocalDate getLocalDate(DbfColumn column) {
+        return getLocalDate(columnPosition(column, DbfColumnTypes.Date));
+    }
+
+    private LocalDate getLocalDate(DbfColumnPosition dbfColumnPos) {
+        // null date is 0 as empty date
+        int value = getDateValue(dbfColumnPos);
+        if (value == 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(value / 10000, value / 100 % 100, value % 100);
+        } catch (DateTimeException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + ": "
+                    + value + DbfConstants.EXCP_CURR_REC_INFO
+                    + String.valueOf(this.currentRecord), e);
+        }
+    }
+
+    private int getDateValue(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return 0;
+        }
+        int value = DbfHelper.parseDate(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getColumnLength());
+        if (value == DbfHelper.DATE_UNPARSED) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + ": "
+                    + new String(record, dbfColumnPos.getOffset(), dbfColumnPos.getColumnLength())
+                    + DbfConstants.EXCP_CURR_REC_INFO
+                    + String.valueOf(this.currentRecord));
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the value of the designated datetime column (Visual Foxpro) in the current record of
+     * this <code>DbfRecord</code> object as a <code>LocalDateTime</code> in the Java programming language.
+     *
+     * @param colName xBase field name
+     * @return LocalDateTime object or <code>null</code> for empty field
+     * @since 1.13
+     */
+    public LocalDateTime getLocalDateTime(String colName) {
+        return getLocalDateTime(definePosition(colName, "T"));
+    }
+
+    /**
+     * Retrieves the value of the designated datetime column (Visual Foxpro) in the current record of
+     * this <code>DbfRecord</code> object as a <code>LocalDateTime</code> in the Java programming language.
+     * The column is resolved once, so there is no search of column by name.
+     *
+     * @param column column of dbf header
+     * @return LocalDateTime object or <code>null</code> for empty field
+     * @since 1.13
+     */
+    public LocalDateTime getLocalDateTime(DbfColumn column) {
+        return getLocalDateTime(columnPosition(column, DbfColumnTypes.DateTime));
+    }
+
+    private LocalDateTime getLocalDateTime(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return null;
+        }
+        long millis = DbfHelper.readDateTime(record, dbfColumnPos.getOffset());
+        if (millis == Long.MIN_VALUE) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1000000, ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT + DbfConstants.EXCP_CURR_REC_INFO
+                    + String.valueOf(this.currentRecord), e);
+        }
+    }
+
+    /**
+     * Retrieves the value of the designated varbinary column (Visual Foxpro) in the current record of
+     * this <code>DbfRecord</code> object as copy of bytes of value. Value may be shorter than field.
+     *
+     * @param colName xBase field name
+     * @return bytes of value or <code>null</code> for null value
+     * @since 1.13
+     */
+    public byte[] getBytes(String colName) {
+        return getBytes(definePosition(colName, "Q"));
+    }
+
+    /**
+     * Retrieves the value of the designated varbinary column (Visual Foxpro) in the current record of
+     * this <code>DbfRecord</code> object as copy of bytes of value.
+     *
+     * @param column column of dbf header
+     * @return bytes of value or <code>null</code> for null value
+     * @see #getBytes(String)
+     * @since 1.13
+     */
+    public byte[] getBytes(DbfColumn column) {
+        return getBytes(columnPosition(column, DbfColumnTypes.Varbinary));
+    }
+
+    private byte[] getBytes(DbfColumnPosition dbfColumnPos) {
+        if (isNullBit(dbfColumnPos)) {
+            return null;
+        }
+        return Arrays.copyOfRange(record, dbfColumnPos.getOffset(),
+                dbfColumnPos.getOffset() + getValueLength(dbfColumnPos));
+    }
+
+    /**
+     * Returns length of value. Varchar (varbinary) value which is shorter than field keeps its length
+     * in the last byte of field, and it is marked by bit of <code>_NullFlags</code> field.
+     */
+    private int getValueLength(DbfColumnPosition dbfColumnPos) {
+        int varLengthByte = dbfColumnPos.getVarLengthByte();
+        if (varLengthByte >= 0 && (record[varLengthByte] & dbfColumnPos.getVarLengthMask()) != 0) {
+            int length = record[dbfColumnPos.getOffset() + dbfColumnPos.getColumnLength() - 1] & 0xff;
+            return Math.min(length, dbfColumnPos.getColumnLength() - 1);
+        }
+        return dbfColumnPos.getColumnLength();
+    }
+
+    private boolean isNullBit(DbfColumnPosition dbfColumnPos) {
+        return dbfColumnPos.getNullByte() >= 0
+                && (record[dbfColumnPos.getNullByte()] & dbfColumnPos.getNullMask()) != 0;
+    }
+
+    /**
+     * Checks the designated column in the current record on null value. Null value of nullable field of
+     * Visual Foxpro is kept as bit of hidden <code>_NullFlags</code> field, so check is a single bit test and
+     * empty value is not null. Other fields of Visual Foxpro table are never null. For dbf files without
+     * <code>_NullFlags</code> field empty (blank) field is null.
+     *
+     * @param colName xBase field name
+     * @return <code>true</code> if value is null
+     * @since 1.13
+     */
+    public boolean isNull(String colName) {
+        return isNull(dbfHeader.getDbfColumn(colName));
+    }
+
+    /**
+     * Checks the designated column in the current record on null value.
+     *
+     * @param column column of dbf header
+     * @return <code>true</code> if value is null
+     * @see #isNull(String)
+     * @since 1.13
+     */
+    public boolean isNull(DbfColumn column) {
+        DbfColumnPosition dbfColumnPos = columnPosition(column, column.getDbfColumnType());
+        if (dbfColumnPos.getNullByte() >= 0) {
+            return (record[dbfColumnPos.getNullByte()] & dbfColumnPos.getNullMask()) != 0;
+        }
+        if (dbfHeader.hasNullFlags() || column.isBinary()) {
+            return false;
+        }
+        return DbfHelper.isEmpty(record, dbfColumnPos.getOffset(), dbfColumnPos.getColumnLength());
+    }
+
+    /**
+     * Retrieves the text of memo field (memo file is read).
+     *
+     * @param colName xBase field name (memo or general)
+     * @return text of memo or <code>null</code> if memo is empty
+     * @since 1.13
+     */
+    public String getMemo(String colName) {
+        return getMemo(definePosition(colName, MEMO_TYPES), colName);
+    }
+
+    /**
+     * Retrieves the text of memo field (memo file is read).
+     *
+     * @param column column of dbf header (memo or general)
+     * @return text of memo or <code>null</code> if memo is empty
+     * @see #getString(DbfColumn)
+     * @since 1.13
+     */
+    public String getMemo(DbfColumn column) {
+        return getMemo(columnPosition(column, MEMO_COLUMN_TYPES), column.getColumnName());
+    }
+
+    private String getMemo(DbfColumnPosition dbfColumnPos, String colName) {
+        long block = getMemoBlock(dbfColumnPos);
+        if (block == 0) {
+            return null;
+        }
+        byte[] memo = getMemoFile(colName).readMemo(block);
+        if (charTable != null) {
+            return charTable.decode(memo, 0, memo.length);
+        }
+        try {
+            return new String(memo, dbfHeader.getCodePage());
+        } catch (UnsupportedEncodingException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP);
+        }
+    }
+
+    /**
+     * Retrieves content of memo field as stream. Long memo is read by parts, so it is not loaded into memory.
+     *
+     * @param colName xBase field name (memo or general)
+     * @return stream of memo content or <code>null</code> if memo is empty
+     * @since 1.13
+     */
+    public InputStream getMemoStream(String colName) {
+        return getMemoStream(definePosition(colName, MEMO_TYPES), colName);
+    }
+
+    /**
+     * Retrieves content of memo field as stream.
+     *
+     * @param column column of dbf header (memo or general)
+     * @return stream of memo content or <code>null</code> if memo is empty
+     * @see #getMemoStream(String)
+     * @since 1.13
+     */
+    public InputStream getMemoStream(DbfColumn column) {
+        return getMemoStream(columnPosition(column, MEMO_COLUMN_TYPES),
+                column.getColumnName());
+    }
+
+    private InputStream getMemoStream(DbfColumnPosition dbfColumnPos, String colName) {
+        long block = getMemoBlock(dbfColumnPos);
+        if (block == 0) {
+            return null;
+        }
+        return getMemoFile(colName).openMemoStream(block);
+    }
+
+    /**
+     * Appends memo of field into other memo file. Type of Foxpro memo is kept, memo of dBase is text.
+     *
+     * @return number of first block of appended memo or 0 if memo is empty
+     */
+    long copyMemo(DbfColumn column, DbfMemoWriter memoWriter) {
+        long block = getMemoBlock(column.getDbfColumnPosition());
+        if (block == 0) {
+            return 0;
+        }
+        DbfMemoFile memoFile = getMemoFile(column.getColumnName());
+        byte[] memo = memoFile.readMemo(block);
+        if (memoFile.isFoxpro()) {
+            return memoWriter.writeMemo(memo, memoFile.getMemoType(block));
+        }
+        return memoWriter.writeMemo(memo);
+    }
+
+    private DbfMemoFile getMemoFile(String colName) {
+        DbfMemoFile memoFile = dbfHeader.getMemoFile();
+        if (memoFile == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_MISSED + colName);
+        }
+        return memoFile;
+    }
+
+    /**
+     * Returns number of first block of memo. Visual Foxpro keeps it as 4 byte integer,
+     * other dbf files keep it as text.
+     */
+    long getMemoBlock(DbfColumnPosition dbfColumnPos) {
+        int offset = dbfColumnPos.getOffset();
+        if (dbfColumnPos.getColumnLength() == 4) {
+            return DbfHelper.readIntLE(record, offset) & 0xffffffffL;
+        }
+        long block = 0;
+        for (int i = offset; i < offset + dbfColumnPos.getColumnLength(); i++) {
+            int digit = record[i] - '0';
+            if (digit >= 0 && digit <= 9) {
+                block = block * 10 + digit;
+            } else if (record[i] != EMPTY_SYMBOL_SPACE && record[i] != EMPTY_SYMBOL_ZERO) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM
+                        + DbfConstants.EXCP_CURR_REC_INFO + String.valueOf(this.currentRecord));
             }
         }
-        return date;
+        return block;
     }
 
     /**
@@ -260,7 +884,7 @@ public class DbfRecord {
         return record[0] == DbfConstants.DELETED_MARKER;
     }
 
-    private DbfColumnPosition definePosition(String colName, String reqType) {
+    private DbfColumnPosition definePosition(String colName, String... reqTypes) {
         DbfColumnPosition dbfColumnPos = mapColumnPos
                 .get(colName.toUpperCase());
         if (dbfColumnPos == null) {
@@ -270,7 +894,11 @@ public class DbfRecord {
                         + colName);
             }
 
-            if (!reqType.equals(dbfColumn.getOriginalType())) {
+            if (projection != null && !projection.isProjected(dbfColumn)) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOT_PROJECTED
+                        + colName);
+            }
+            if (!isRequiredType(dbfColumn, reqTypes)) {
                 throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
                         + colName);
             }
@@ -281,6 +909,41 @@ public class DbfRecord {
         return dbfColumnPos;
     }
 
+    private static boolean isRequiredType(DbfColumn dbfColumn, String[] reqTypes) {
+        for (String reqType : reqTypes) {
+            if (reqType.equals(dbfColumn.getOriginalType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn column, DbfColumnTypes reqType) {
+        return columnPosition(column, reqType, reqType);
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn dbfColumn, DbfColumnTypes reqType, DbfColumnTypes altType) {
+        DbfColumn column = dbfHeader.resolveColumn(dbfColumn);
+        if (projection != null && !projection.isProjected(column)) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOT_PROJECTED
+                    + column.getColumnName());
+        }
+        if (column.getDbfColumnType() != reqType && column.getDbfColumnType() != altType) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
+                    + column.getColumnName());
+        }
+        return column.getDbfColumnPosition();
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn column, DbfColumnTypes[] reqTypes) {
+        for (DbfColumnTypes reqType : reqTypes) {
+            if (column.getDbfColumnType() == reqType) {
+                return columnPosition(column, reqType);
+            }
+        }
+        return columnPosition(column, reqTypes[0]);
+    }
+
     void setCurrentRecord(int currentRecord) {
         this.currentRecord = currentRecord;
     }
@@ -290,7 +953,7 @@ public class DbfRecord {
         return handleField(dbfColumnPos);
     }
 
-    private boolean isNull(DbfColumn column) {
+    private boolean isEmptyValue(DbfColumn column) {
         boolean fok = true;
         String str = getStringValue(column.getColumnName(),
                 column.getOriginalType());
@@ -310,29 +973,46 @@ public class DbfRecord {
      */
     public String getAsString(DbfColumn column) {
         String ret = null;
+        column = dbfHeader.resolveColumn(column);
+        if (isNullBit(column.getDbfColumnPosition())) {
+            return ret;
+        }
 
         if (column.getDbfColumnType() == DbfColumnTypes.Numeric) {
-            BigDecimal big = getBigDecimal(column.getColumnName());
+            BigDecimal big = getBigDecimal(column);
             if (big != null) {
                 ret = big.toString();
             }
         } else if (column.getDbfColumnType() == DbfColumnTypes.Character) {
-            ret = getString(column.getColumnName());
+            ret = getString(column);
         } else if (column.getDbfColumnType() == DbfColumnTypes.Float) {
-            if (!isNull(column)) {
-                float val = getFloat(column.getColumnName());
+            if (!isEmptyValue(column)) {
+                float val = getFloat(column);
                 ret = String.valueOf(val);
             }
         } else if (column.getDbfColumnType() == DbfColumnTypes.Date) {
-            Date date = getDate(column.getColumnName());
+            Date date = getDate(column);
             if (date != null) {
                 ret = dateToStr.format(date);
             }
         } else if (column.getDbfColumnType() == DbfColumnTypes.Logical) {
-            if (!isNull(column)) {
-                boolean flag = getBoolean(column.getColumnName());
+            if (!isEmptyValue(column)) {
+                boolean flag = getBoolean(column);
                 ret = String.valueOf(flag);
             }
+        } else if (column.getDbfColumnType() == DbfColumnTypes.Integer) {
+            ret = String.valueOf(getInt(column));
+        } else if (column.getDbfColumnType() == DbfColumnTypes.Double) {
+            ret = String.valueOf(getDouble(column));
+        } else if (column.getDbfColumnType() == DbfColumnTypes.Currency) {
+            ret = getBigDecimal(column).toString();
+        } else if (column.getDbfColumnType() == DbfColumnTypes.DateTime) {
+            LocalDateTime dateTime = getLocalDateTime(column);
+            if (dateTime != null) {
+                ret = dateTime.toString();
+            }
+        } else if (column.getDbfColumnType() == DbfColumnTypes.Varchar) {
+            ret = getString(column);
         }
         return ret;
     }
@@ -347,6 +1027,25 @@ public class DbfRecord {
         return currentRecord;
     }
 
+    /**
+     * Returns detached copy of this record. Record object of iterator is reused for every next record,
+     * so a copy has to be made for records which are kept after reading of next record.
+     *
+     * @return copy of record with own buffer
+     * @since 1.13
+     */
+    public DbfRecord copyRecord() {
+        DbfRecord copy = new DbfRecord(record.clone(), dbfHeader);
+        copy.setCurrentRecord(currentRecord);
+        copy.setProjection(projection);
+        return copy;
+    }
+
+    void setProjection(DbfProjection projection) {
+        this.projection = projection;
+        mapColumnPos.clear();
+    }
+
     /**
      * Return record
      * @return current record as byte array
@@ -355,4 +1054,8 @@ public class DbfRecord {
     byte[] getRecord() {
         return record;
     }
+
+    DbfHeader getDbfHeader() {
+        return dbfHeader;
+    }
 }
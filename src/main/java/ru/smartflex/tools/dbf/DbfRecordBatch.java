@@ -0,0 +1,158 @@
+package ru.smartflex.tools.dbf;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The class <code>DbfRecordBatch</code> represents block of records decoded column by column into
+ * {@link DbfColumnVector} objects. Memo and general columns are not decoded. If projection is defined
+ * (see {@link DbfIterator#project(String...)}) then only projected columns are decoded.
+ * <br>
+ * Batch object of iterator is reused for every next batch (as record object is reused for every next record).
+ *
+ * @author galisha
+ * @see DbfIterator#nextBatch(int)
+ * @since 1.13
+ */
+public class DbfRecordBatch {
+
+    private DbfHeader dbfHeader;
+    private int lengthRecord;
+    private byte[] block;
+    private int capacity;
+    private int rowCount = 0;
+    private BitSet deleted = new BitSet();
+    private DbfColumnVector[] vectors;
+    private DbfProjection projection;
+    private int[] recordNumbers;
+
+    DbfRecordBatch(DbfHeader dbfHeader, int capacity, DbfProjection projection) {
+        this.dbfHeader = dbfHeader;
+        this.lengthRecord = dbfHeader.getLengthRecord();
+        this.capacity = capacity;
+        this.projection = projection;
+        block = new byte[capacity * lengthRecord];
+        recordNumbers = new int[capacity];
+
+        List<DbfColumn> columns = dbfHeader.getOrderedColumnList();
+        if (projection != null) {
+            columns = projection.getColumns();
+        }
+        vectors = new DbfColumnVector[dbfHeader.getCountColumns()];
+        for (DbfColumn column : columns) {
+            if (DbfColumnVector.isSupported(column)) {
+                vectors[column.getColumnIndex()] = new DbfColumnVector(column, dbfHeader);
+            }
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    byte[] getBlock() {
+        return block;
+    }
+
+    void setRecordNumber(int row, int recNo) {
+        recordNumbers[row] = recNo;
+    }
+
+    /**
+     * Decodes records placed in block.
+     *
+     * @param rows count of records in block
+     */
+    void decode(int rows) {
+        this.rowCount = rows;
+        deleted.clear();
+        for (int row = 0; row < rows; row++) {
+            if (block[row * lengthRecord] == DbfConstants.DELETED_MARKER) {
+                deleted.set(row);
+            }
+        }
+        for (DbfColumnVector vector : vectors) {
+            if (vector != null) {
+                vector.decode(block, rows, lengthRecord, recordNumbers);
+            }
+        }
+    }
+
+    /**
+     * Returns count of records in batch.
+     *
+     * @return count of records
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns number of first record of batch, starting from zero.
+     *
+     * @return number of first record
+     */
+    public int getFirstRecord() {
+        return recordNumbers[0];
+    }
+
+    /**
+     * Returns number of record in dbf file, starting from zero. Records of batch may be not contiguous
+     * if filter is defined for iterator.
+     *
+     * @param row record index in batch
+     * @return number of record
+     */
+    public int getRecordNumber(int row) {
+        return recordNumbers[row];
+    }
+
+    /**
+     * Returns <code>true</code> if record is marked as deleted.
+     *
+     * @param row record index in batch
+     * @return <code>true</code> if record is marked as deleted
+     */
+    public boolean isDeleted(int row) {
+        return deleted.get(row);
+    }
+
+    /**
+     * Returns bit set of deleted records.
+     *
+     * @return bit set where bit is set for deleted record
+     */
+    public BitSet getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Returns vector of column.
+     *
+     * @param colName xBase field name
+     * @return vector of column
+     */
+    public DbfColumnVector getVector(String colName) {
+        return getVector(dbfHeader.getDbfColumn(colName));
+    }
+
+    /**
+     * Returns vector of column.
+     *
+     * @param column column of dbf header
+     * @return vector of column
+     */
+    public DbfColumnVector getVector(DbfColumn column) {
+        column = dbfHeader.resolveColumn(column);
+        if (projection != null && !projection.isProjected(column)) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOT_PROJECTED
+                    + column.getColumnName());
+        }
+        DbfColumnVector vector = vectors[column.getColumnIndex()];
+        if (vector == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
+                    + column.getColumnName());
+        }
+        return vector;
+    }
+}
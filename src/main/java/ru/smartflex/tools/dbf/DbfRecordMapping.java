@@ -0,0 +1,147 @@
+package ru.smartflex.tools.dbf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Mapping of columns of source record to columns of target record with the same names. Byte ranges of
+ * columns (and deleted flag) which are adjacent in both records are merged into runs, so record is copied
+ * by few <code>System.arraycopy</code> calls.
+ * <br>
+ * Block numbers of memo fields are copied as bytes too, so memos have to be copied into memo file of target record
+ * (see {@link DbfStatement#fillStatement(DbfRecord)}).
+ * <br>
+ * Hidden <code>_NullFlags</code> field of Visual Foxpro is not copied as bytes, because bits of the same column may
+ * be placed differently in both records. Null and variable length bits are copied bit by bit.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfRecordMapping {
+
+    private DbfHeader sourceHeader;
+    private int[] srcOffsets;
+    private int[] dstOffsets;
+    private int[] lengths;
+    private int[] srcBitBytes;
+    private byte[] srcBitMasks;
+    private int[] dstBitBytes;
+    private byte[] dstBitMasks;
+    private DbfColumn[] memoSources;
+    private DbfColumn[] memoTargets;
+
+    DbfRecordMapping(DbfHeader sourceHeader, DbfHeader targetHeader) {
+        this.sourceHeader = sourceHeader;
+
+        List<DbfColumn> targetColumns = new ArrayList<DbfColumn>(targetHeader.getOrderedColumnList());
+        Collections.sort(targetColumns, new Comparator<DbfColumn>() {
+            public int compare(DbfColumn o1, DbfColumn o2) {
+                return o1.getDbfColumnPosition().getOffset() - o2.getDbfColumnPosition().getOffset();
+            }
+        });
+
+        int size = targetColumns.size() + 1;
+        int[] srcs = new int[size];
+        int[] dsts = new int[size];
+        int[] lens = new int[size];
+        // deleted flag
+        srcs[0] = 0;
+        dsts[0] = 0;
+        lens[0] = 1;
+        int count = 1;
+        List<int[]> bits = new ArrayList<int[]>();
+        List<DbfColumn> memoSourceList = new ArrayList<DbfColumn>();
+        List<DbfColumn> memoTargetList = new ArrayList<DbfColumn>();
+        for (DbfColumn target : targetColumns) {
+            DbfColumn source = sourceHeader.getColumn(target.getColumnName());
+            if (source == null || target.getDbfColumnType() == DbfColumnTypes.NullFlags) {
+                continue;
+            }
+            DbfColumnPosition src = source.getDbfColumnPosition();
+            DbfColumnPosition dst = target.getDbfColumnPosition();
+            if (source.getDbfColumnType() != target.getDbfColumnType()
+                    || src.getColumnLength() != dst.getColumnLength()
+                    || src.getColumnDotAmount() != dst.getColumnDotAmount()) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE + target.getColumnName());
+            }
+            if (target.getDbfColumnType().isMemo()) {
+                memoSourceList.add(source);
+                memoTargetList.add(target);
+            }
+            if (dst.getNullByte() >= 0) {
+                bits.add(new int[]{src.getNullByte(), src.getNullMask(), dst.getNullByte(), dst.getNullMask()});
+            }
+            if (dst.getVarLengthByte() >= 0) {
+                bits.add(new int[]{src.getVarLengthByte(), src.getVarLengthMask(),
+                        dst.getVarLengthByte(), dst.getVarLengthMask()});
+            }
+            int last = count - 1;
+            if (srcs[last] + lens[last] == src.getOffset() && dsts[last] + lens[last] == dst.getOffset()) {
+                lens[last] += src.getColumnLength();
+            } else {
+                srcs[count] = src.getOffset();
+                dsts[count] = dst.getOffset();
+                lens[count] = src.getColumnLength();
+                count++;
+            }
+        }
+        srcOffsets = new int[count];
+        dstOffsets = new int[count];
+        lengths = new int[count];
+        System.arraycopy(srcs, 0, srcOffsets, 0, count);
+        System.arraycopy(dsts, 0, dstOffsets, 0, count);
+        System.arraycopy(lens, 0, lengths, 0, count);
+
+        srcBitBytes = new int[bits.size()];
+        srcBitMasks = new byte[bits.size()];
+        dstBitBytes = new int[bits.size()];
+        dstBitMasks = new byte[bits.size()];
+        for (int i = 0; i < bits.size(); i++) {
+            int[] bit = bits.get(i);
+            srcBitBytes[i] = bit[0];
+            srcBitMasks[i] = (byte) bit[1];
+            dstBitBytes[i] = bit[2];
+            dstBitMasks[i] = (byte) bit[3];
+        }
+        memoSources = memoSourceList.toArray(new DbfColumn[memoSourceList.size()]);
+        memoTargets = memoTargetList.toArray(new DbfColumn[memoTargetList.size()]);
+    }
+
+    DbfHeader getSourceHeader() {
+        return sourceHeader;
+    }
+
+    int getRunCount() {
+        return lengths.length;
+    }
+
+    /**
+     * Returns memo columns of source record. Their block numbers are copied as is.
+     */
+    DbfColumn[] getMemoSources() {
+        return memoSources;
+    }
+
+    /**
+     * Returns memo columns of target record, in the same order as {@link #getMemoSources()}.
+     */
+    DbfColumn[] getMemoTargets() {
+        return memoTargets;
+    }
+
+    void copy(byte[] srcRecord, byte[] dstRecord) {
+        for (int i = 0; i < lengths.length; i++) {
+            System.arraycopy(srcRecord, srcOffsets[i], dstRecord, dstOffsets[i], lengths[i]);
+        }
+        for (int i = 0; i < dstBitBytes.length; i++) {
+            // source without such bit keeps not null value of fixed length
+            if (srcBitBytes[i] >= 0 && (srcRecord[srcBitBytes[i]] & srcBitMasks[i]) != 0) {
+                dstRecord[dstBitBytes[i]] |= dstBitMasks[i];
+            } else {
+                dstRecord[dstBitBytes[i]] &= ~dstBitMasks[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.smartflex.tools.dbf;
+
+/**
+ * Callback for parallel insertion of records. It is invoked once per producer in own thread.
+ * Sample of usage:
+ *
+ * <pre>
+ * dbfAppender.insertParallel(4, true, new DbfRecordProducer() {
+ * 	public void produceRecords(int producer, DbfStatement statement) {
+ * 		for (int i = producer * 1000; i &lt; (producer + 1) * 1000; i++) {
+ * 			statement.setInt("num", i);
+ * 			statement.insertStatement();
+ * 		}
+ * 	}
+ * });
+ * dbfAppender.writeDbfAndClose();
+ * </pre>
+ *
+ * @author galisha
+ * @see DbfAppender#insertParallel(int, boolean, DbfRecordProducer)
+ * @since 1.13
+ */
+public interface DbfRecordProducer {
+
+    /**
+     * Inserts records through given statement.
+     *
+     * @param producer  number of producer, starting from zero
+     * @param statement statement of producer; it must not be used by other threads
+     * @since 1.13
+     */
+    void produceRecords(int producer, DbfStatement statement);
+}
@@ -0,0 +1,73 @@
+package ru.smartflex.tools.dbf;
+
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over range of dbf records. Records have fixed length, so the range is split in halves
+ * without any reading. Every split reads own records through positional reads of shared file channel
+ * and hands out own (reused) record object.
+ *
+ * @author galisha
+ * @since 1.13
+ */
+class DbfRecordSpliterator implements Spliterator<DbfRecord> {
+
+    private DbfHeader dbfHeader;
+    private FileChannel channel;
+    private int firstRecord;
+    private int lastRecord;
+    private DbfProjection projection;
+    private DbfIterator dbfIterator = null;
+
+    DbfRecordSpliterator(DbfHeader dbfHeader, FileChannel channel, int firstRecord, int lastRecord,
+                         DbfProjection projection) {
+        this.dbfHeader = dbfHeader;
+        this.projection = projection;
+        this.channel = channel;
+        this.firstRecord = firstRecord;
+        this.lastRecord = lastRecord;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super DbfRecord> action) {
+        if (dbfIterator == null) {
+            dbfIterator = new DbfIterator(dbfHeader, channel, firstRecord, lastRecord, projection);
+        }
+        if (dbfIterator.hasMoreRecords()) {
+            action.accept(dbfIterator.nextRecord());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<DbfRecord> trySplit() {
+        if (dbfIterator != null) {
+            // reading has been started
+            return null;
+        }
+        int size = lastRecord - firstRecord;
+        if (size < 2) {
+            return null;
+        }
+        int middle = firstRecord + size / 2;
+        DbfRecordSpliterator prefix = new DbfRecordSpliterator(dbfHeader, channel, firstRecord, middle, projection);
+        firstRecord = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (dbfIterator == null) {
+            return lastRecord - firstRecord;
+        }
+        return lastRecord - dbfIterator.getCurrentRecord();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
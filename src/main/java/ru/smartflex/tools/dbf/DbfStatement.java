@@ -1,16 +1,16 @@
 package ru.smartflex.tools.dbf;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,35 +23,92 @@ import java.util.Map;
 public class DbfStatement {
 
     private byte[] rec;
+    private byte[] emptyRec;
     private Map<String, DbfColumnPosition> mapColumnPos = new HashMap<String, DbfColumnPosition>();
     private DbfHeader dbfHeader;
     private DbfCodePages dbfCodePage;
-    private File tempDbf = null;
+    private DbfCharTable charTable;
     private OutputStream dbfStream = null;
     private DbfAppender dbfAppender;
     private SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd");
     private byte[] oneByte = new byte[1];
+    private byte[] writeBuffer = null;
+    private int writeBufferSize = WRITE_BUFFER_SIZE;
+    private DbfRecordMapping recordMapping = null;
+    private DbfAppender memoAppender = null;
+    private int bufferedRecords = 0;
+
+    /**
+     * Default size of write buffer in bytes. The buffer holds whole records only.
+     */
+    static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L,
+            10000000L, 100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L,
+            10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L,
+            100000000000000000L, 1000000000000000000L};
+
+    /**
+     * Scaled double below this limit differs from the next multiple of 10^-dec by more than its ulp.
+     */
+    private static final double EXACT_SCALED_LIMIT = 1L << 50;
+    private static final int CURRENCY_SCALE = 4;
+    private static final DbfColumnTypes[] NUMBER_TYPES = {DbfColumnTypes.Numeric, DbfColumnTypes.Float,
+            DbfColumnTypes.Integer, DbfColumnTypes.Double, DbfColumnTypes.Currency};
+    private static final DbfColumnTypes[] MEMO_TYPES = {DbfColumnTypes.Memo, DbfColumnTypes.General,
+            DbfColumnTypes.Blob};
 
     DbfStatement(DbfHeader dbfHeader, DbfCodePages dbfCodePage,
                            DbfAppender dbfAppender) {
+        this(dbfHeader, dbfCodePage, dbfAppender, null);
+        dbfStream = dbfAppender.getBodyStream();
+    }
+
+    /**
+     * Creates statement which writes records into given stream. If appender is missed then records
+     * are not counted by appender (it is done by writer of stream).
+     */
+    DbfStatement(DbfHeader dbfHeader, DbfCodePages dbfCodePage,
+                 DbfAppender dbfAppender, OutputStream dbfStream) {
         this.dbfHeader = dbfHeader;
         this.dbfCodePage = dbfCodePage;
         this.dbfAppender = dbfAppender;
+        if (dbfCodePage != null) {
+            charTable = dbfCodePage.getCharTable();
+        }
         rec = new byte[dbfHeader.getLengthRecord()];
+        emptyRec = createEmptyRecord(dbfHeader);
         clearStatement();
-        createTempFile();
+        this.dbfStream = dbfStream;
+        this.memoAppender = dbfAppender;
     }
 
-    private void createTempFile() {
-        try {
-            tempDbf = File.createTempFile("engine", "dbf");
-            dbfStream = new FileOutputStream(tempDbf);
-        } catch (FileNotFoundException e) {
-            throw new DbfEngineException(DbfConstants.EXCP_DBF_ERR_CREATE, e);
-        } catch (IOException e) {
-            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+    /**
+     * Sets appender whose memo file is used by statement which does not count records by appender.
+     */
+    void setMemoAppender(DbfAppender memoAppender) {
+        this.memoAppender = memoAppender;
+    }
 
-        }
+    /**
+     * Allocates write buffer on first insert, so statements which do not insert records have no buffer.
+     */
+    private void allocateWriteBuffer() {
+        int records = Math.max(1, writeBufferSize / rec.length);
+        writeBuffer = new byte[records * rec.length];
+    }
+
+    /**
+     * Sets size of write buffer. The size is rounded down to whole records (one record at least).
+     * Records buffered before are written into dbf file.
+     *
+     * @param bufferSize size of buffer in bytes
+     * @since 1.13
+     */
+    public void setWriteBufferSize(int bufferSize) {
+        executeBatch();
+        writeBufferSize = bufferSize;
+        writeBuffer = null;
     }
 
     /**
@@ -63,36 +120,98 @@ public class DbfStatement {
         rec[0] = DbfConstants.DELETED_MARKER;
     }
 
-    InputStream getDbfBodyInputStream() {
-        try {
-            dbfStream.close();
-            return new FileInputStream(tempDbf);
-        } catch (IOException e) {
-            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
-        }
+    byte[] getRecord() {
+        return rec;
     }
 
     /**
-     * Insert current record into dbf file.
+     * Insert current record into dbf file. The record is placed into write buffer, and the buffer
+     * is written when it is full (see {@link #flush()}).
      *
      * @since 1.00
      */
     public void insertStatement() {
+        if (dbfStream == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_INSERT_NOT_ALLOWED);
+        }
+        if (writeBuffer == null) {
+            allocateWriteBuffer();
+        } else if (bufferedRecords * rec.length == writeBuffer.length) {
+            executeBatch();
+        }
+        System.arraycopy(rec, 0, writeBuffer, bufferedRecords * rec.length, rec.length);
+        bufferedRecords++;
+        if (dbfAppender != null) {
+            dbfAppender.registerNewRecord();
+        }
+
+        clearStatement();
+    }
+
+    /**
+     * Adds current record to the batch of records. Is the same as {@link #insertStatement()}.
+     *
+     * @since 1.13
+     */
+    public void addBatch() {
+        insertStatement();
+    }
+
+    /**
+     * Writes batch of buffered records into dbf file by one write operation.
+     *
+     * @return count of written records
+     * @since 1.13
+     */
+    public int executeBatch() {
+        int count = bufferedRecords;
+        if (count > 0) {
+            try {
+                dbfStream.write(writeBuffer, 0, count * rec.length);
+            } catch (IOException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+            }
+            bufferedRecords = 0;
+        }
+        return count;
+    }
+
+    /**
+     * Writes buffered records and flushes output stream. Header of dbf file is updated by
+     * {@link DbfAppender#writeDbfAndClose()} only. Statement of {@link DbfUpdater} does not insert records,
+     * so DbfEngineException is thrown for it.
+     *
+     * @since 1.13
+     */
+    public void flush() {
+        if (dbfStream == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_INSERT_NOT_ALLOWED);
+        }
+        executeBatch();
         try {
-            dbfStream.write(rec);
             dbfStream.flush();
-            dbfAppender.registerNewRecord();
         } catch (IOException e) {
             throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
         }
-
-        clearStatement();
     }
 
-    private void clearStatement() {
-        for (int i = 0; i < rec.length; i++) {
-            rec[i] = DbfConstants.DBF_REC_FILLSYMB;
+    /**
+     * Creates empty record: text fields are filled by spaces, binary fields (Visual Foxpro) by zeros.
+     */
+    private static byte[] createEmptyRecord(DbfHeader dbfHeader) {
+        byte[] empty = new byte[dbfHeader.getLengthRecord()];
+        Arrays.fill(empty, (byte) DbfConstants.DBF_REC_FILLSYMB);
+        for (DbfColumn column : dbfHeader.getOrderedColumnList()) {
+            if (column.isBinary()) {
+                DbfColumnPosition dcp = column.getDbfColumnPosition();
+                Arrays.fill(empty, dcp.getOffset(), dcp.getOffset() + dcp.getColumnLength(), (byte) 0);
+            }
         }
+        return empty;
+    }
+
+    void clearStatement() {
+        System.arraycopy(emptyRec, 0, rec, 0, rec.length);
     }
 
     /**
@@ -104,18 +223,43 @@ public class DbfStatement {
      */
     public void setString(String colName, String value) {
         if (value != null) {
-            DbfColumnPosition dcp = definePosition(colName,
-                    DbfColumnTypes.Character);
-            if (value.length() > dcp.getColumnLength()) {
-                throw new DbfEngineException(
-                        DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
-            }
-            try {
-                byte[] val = value.getBytes(dbfCodePage.getCharsetName());
-                fillRec(dcp, val);
-            } catch (UnsupportedEncodingException e) {
-                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP, e);
+            setString(definePosition(colName, DbfColumnTypes.Character, DbfColumnTypes.Varchar), colName, value);
+        }
+    }
+
+    /**
+     * Sets the designated parameter to the given Java <code>String</code> value.
+     * The column is resolved once (see {@link DbfHeader#getDbfColumn(String)}), so there is no search by name.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @since 1.13
+     */
+    public void setString(DbfColumn column, String value) {
+        if (value != null) {
+            setString(columnPosition(column, DbfColumnTypes.Character, DbfColumnTypes.Varchar),
+                    column.getColumnName(), value);
+        }
+    }
+
+    private void setString(DbfColumnPosition dcp, String colName, String value) {
+        if (value.length() > dcp.getColumnLength()) {
+            throw new DbfEngineException(
+                    DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+        }
+        byte[] val = null;
+        if (charTable != null) {
+            val = charTable.encode(value);
+        }
+        try {
+            if (val == null) {
+                val = value.getBytes(dbfCodePage.getCharsetName());
             }
+            fillRec(dcp, val);
+            setValueLength(dcp, val.length);
+            clearNullBit(dcp);
+        } catch (UnsupportedEncodingException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP, e);
         }
     }
 
@@ -128,13 +272,31 @@ public class DbfStatement {
      */
     public void setDate(String colName, Date value) {
         if (value != null) {
-            DbfColumnPosition dcp = definePosition(colName, DbfColumnTypes.Date);
-            String dateStr = sdf.format(value);
-            byte[] val = dateStr.getBytes();
-            fillRec(dcp, val);
+            setDate(definePosition(colName, DbfColumnTypes.Date), value);
         }
     }
 
+    /**
+     * Sets the designated parameter to the given Java <code>Date</code> value.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setString(DbfColumn, String)
+     * @since 1.13
+     */
+    public void setDate(DbfColumn column, Date value) {
+        if (value != null) {
+            setDate(columnPosition(column, DbfColumnTypes.Date), value);
+        }
+    }
+
+    private void setDate(DbfColumnPosition dcp, Date value) {
+        String dateStr = sdf.format(value);
+        byte[] val = dateStr.getBytes();
+        fillRec(dcp, val);
+        clearNullBit(dcp);
+    }
+
     /**
      * Sets the designated parameter to the given Java <code>BigDecimal</code> value
      *
@@ -144,12 +306,29 @@ public class DbfStatement {
      */
     public void setBigDecimal(String colName, BigDecimal value) {
         if (value != null) {
-            setNumeric(colName, value);
+            setNumeric(definePosition(colName, DbfColumnTypes.Numeric, DbfColumnTypes.Currency), colName, value);
         }
     }
 
     /**
-     * Sets the designated parameter to the given Java <code>Float</code> value
+     * Sets the designated parameter to the given Java <code>BigDecimal</code> value.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setString(DbfColumn, String)
+     * @since 1.13
+     */
+    public void setBigDecimal(DbfColumn column, BigDecimal value) {
+        if (value != null) {
+            setNumeric(columnPosition(column, DbfColumnTypes.Numeric, DbfColumnTypes.Currency),
+                    column.getColumnName(), value);
+        }
+    }
+
+    /**
+     * Sets the designated parameter to the given Java <code>Float</code> value. Decimal form of value
+     * (<code>Float.toString()</code>) is written as is, so value with more digits than dec of column is rejected
+     * as it is since 1.00 (see {@link #setDouble(String, double)} for rounding).
      *
      * @param colName xBase field name
      * @param value   value
@@ -158,7 +337,22 @@ public class DbfStatement {
     public void setFloat(String colName, Float value) {
         if (value != null) {
             BigDecimal valueBig = new BigDecimal(value.toString());
-            setNumeric(colName, valueBig);
+            setNumeric(definePosition(colName, DbfColumnTypes.Numeric), colName, valueBig);
+        }
+    }
+
+    /**
+     * Sets the designated parameter to the given Java <code>Float</code> value.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setString(DbfColumn, String)
+     * @since 1.13
+     */
+    public void setFloat(DbfColumn column, Float value) {
+        if (value != null) {
+            BigDecimal valueBig = new BigDecimal(value.toString());
+            setNumeric(columnPosition(column, DbfColumnTypes.Numeric), column.getColumnName(), valueBig);
         }
     }
 
@@ -171,19 +365,509 @@ public class DbfStatement {
      */
     public void setBoolean(String colName, Boolean value) {
         if (value != null) {
-            DbfColumnPosition dcp = definePosition(colName,
-                    DbfColumnTypes.Logical);
-            if (value.booleanValue()) {
-                oneByte[0] = DbfConstants.LOGICAL_TRUE;
-            } else {
-                oneByte[0] = DbfConstants.LOGICAL_FALSE;
+            setBoolean(definePosition(colName, DbfColumnTypes.Logical), value);
+        }
+    }
+
+    /**
+     * Sets the designated parameter to the given Java <code>Boolean</code> value.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setString(DbfColumn, String)
+     * @since 1.13
+     */
+    public void setBoolean(DbfColumn column, Boolean value) {
+        if (value != null) {
+            setBoolean(columnPosition(column, DbfColumnTypes.Logical), value);
+        }
+    }
+
+    private void setBoolean(DbfColumnPosition dcp, Boolean value) {
+        if (value.booleanValue()) {
+            oneByte[0] = DbfConstants.LOGICAL_TRUE;
+        } else {
+            oneByte[0] = DbfConstants.LOGICAL_FALSE;
+        }
+        fillRec(dcp, oneByte);
+        clearNullBit(dcp);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>int</code> value. Digits are written directly into record,
+     * so there is no creation of objects.
+     *
+     * @param colName xBase field name (numeric, float or binary number)
+     * @param value   value
+     * @since 1.13
+     */
+    public void setInt(String colName, int value) {
+        setScaledLong(definePosition(colName, NUMBER_TYPES), colName, value, 0);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>int</code> value.
+     *
+     * @param column column of dbf header (numeric, float or binary number)
+     * @param value  value
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setInt(DbfColumn column, int value) {
+        setScaledLong(columnPosition(column, NUMBER_TYPES),
+                column.getColumnName(), value, 0);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>long</code> value.
+     *
+     * @param colName xBase field name (numeric, float or binary number)
+     * @param value   value
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setLong(String colName, long value) {
+        setScaledLong(definePosition(colName, NUMBER_TYPES), colName, value, 0);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>long</code> value.
+     *
+     * @param column column of dbf header (numeric, float or binary number)
+     * @param value  value
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setLong(DbfColumn column, long value) {
+        setScaledLong(columnPosition(column, NUMBER_TYPES),
+                column.getColumnName(), value, 0);
+    }
+
+    /**
+     * Sets the designated parameter to the decimal value <code>unscaled * 10^-scale</code>, for example
+     * 12044 with scale 2 is 120.44. Scale is reduced to dec of column without rounding only.
+     *
+     * @param colName  xBase field name (numeric, float or binary number)
+     * @param unscaled unscaled value
+     * @param scale    count of digits after decimal point (0 - 18)
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setScaledLong(String colName, long unscaled, int scale) {
+        setScaledLong(definePosition(colName, NUMBER_TYPES),
+                colName, unscaled, scale);
+    }
+
+    /**
+     * Sets the designated parameter to the decimal value <code>unscaled * 10^-scale</code>.
+     *
+     * @param column   column of dbf header (numeric, float or binary number)
+     * @param unscaled unscaled value
+     * @param scale    count of digits after decimal point (0 - 18)
+     * @see #setScaledLong(String, long, int)
+     * @since 1.13
+     */
+    public void setScaledLong(DbfColumn column, long unscaled, int scale) {
+        setScaledLong(columnPosition(column, NUMBER_TYPES),
+                column.getColumnName(), unscaled, scale);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>double</code> value rounded half up to dec of column.
+     *
+     * @param colName xBase field name (numeric, float or binary number)
+     * @param value   value
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setDouble(String colName, double value) {
+        setDouble(definePosition(colName, NUMBER_TYPES), colName, value);
+    }
+
+    /**
+     * Sets the designated parameter to the given <code>double</code> value rounded half up to dec of column.
+     *
+     * @param column column of dbf header (numeric, float or binary number)
+     * @param value  value
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setDouble(DbfColumn column, double value) {
+        setDouble(columnPosition(column, NUMBER_TYPES),
+                column.getColumnName(), value);
+    }
+
+    /**
+     * Sets the designated parameter to the date given as count of days from 1970-01-01
+     * (see <code>LocalDate.toEpochDay()</code>).
+     *
+     * @param colName  xBase field name
+     * @param epochDay count of days from 1970-01-01
+     * @see #setInt(String, int)
+     * @since 1.13
+     */
+    public void setEpochDay(String colName, long epochDay) {
+        setEpochDay(definePosition(colName, DbfColumnTypes.Date), epochDay);
+    }
+
+    /**
+     * Sets the designated parameter to the date given as count of days from 1970-01-01.
+     *
+     * @param column   column of dbf header
+     * @param epochDay count of days from 1970-01-01
+     * @see #setEpochDay(String, long)
+     * @since 1.13
+     */
+    public void setEpochDay(DbfColumn column, long epochDay) {
+        setEpochDay(columnPosition(column, DbfColumnTypes.Date), epochDay);
+    }
+
+    private void setEpochDay(DbfColumnPosition dcp, long epochDay) {
+        int value = DbfHelper.fromEpochDay(epochDay);
+        if (value == DbfHelper.DATE_UNPARSED) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_DT);
+        }
+        for (int i = dcp.getOffset() + 7; i >= dcp.getOffset(); i--) {
+            rec[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        clearNullBit(dcp);
+    }
+
+    private void setDouble(DbfColumnPosition dcp, String colName, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM);
+        }
+        if (dcp.getBinaryType() == DbfColumnTypes.Double) {
+            DbfHelper.writeLongLE(rec, dcp.getOffset(), Double.doubleToLongBits(value));
+            clearNullBit(dcp);
+            return;
+        }
+        int dec = getScale(dcp);
+        double scaled = value * POWERS_OF_TEN[dec];
+        if (Math.abs(scaled) < EXACT_SCALED_LIMIT && scaled == Math.rint(scaled)
+                && (double) (long) scaled / POWERS_OF_TEN[dec] == value) {
+            // value has no more digits than field keeps, so there is nothing to round
+            setScaledLong(dcp, colName, (long) scaled, dec);
+            return;
+        }
+        // rounding is the same as rounding of decimal form of value (Double.toString)
+        BigInteger unscaled = BigDecimal.valueOf(value).setScale(dec, RoundingMode.HALF_UP).unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+        }
+        setScaledLong(dcp, colName, unscaled.longValue(), dec);
+    }
+
+    /**
+     * Returns count of digits after decimal point which are kept by field.
+     */
+    private static int getScale(DbfColumnPosition dcp) {
+        if (dcp.getBinaryType() == DbfColumnTypes.Currency) {
+            return CURRENCY_SCALE;
+        }
+        if (dcp.getBinaryType() == DbfColumnTypes.Integer) {
+            return 0;
+        }
+        return dcp.getColumnDotAmount();
+    }
+
+    private void setScaledLong(DbfColumnPosition dcp, String colName, long unscaled, int scale) {
+        writeScaledLong(dcp, colName, unscaled, scale);
+        // rejected value keeps null bit
+        clearNullBit(dcp);
+    }
+
+    /**
+     * Writes digits right-aligned into record in the same form as <code>BigDecimal.toString()</code> does.
+     */
+    private void writeScaledLong(DbfColumnPosition dcp, String colName, long unscaled, int scale) {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NUM);
+        }
+        if (dcp.getBinaryType() == DbfColumnTypes.Double) {
+            DbfHelper.writeLongLE(rec, dcp.getOffset(),
+                    Double.doubleToLongBits((double) unscaled / POWERS_OF_TEN[scale]));
+            return;
+        }
+        int dec = getScale(dcp);
+        long value = unscaled;
+        if (scale > dec) {
+            long divisor = POWERS_OF_TEN[scale - dec];
+            if (value % divisor != 0) {
+                throw new DbfEngineException(DbfConstants.EXCP_CP_ARITHERR);
+            }
+            value /= divisor;
+        } else if (scale < dec) {
+            try {
+                value = Math.multiplyExact(value, POWERS_OF_TEN[dec - scale]);
+            } catch (ArithmeticException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName, e);
+            }
+        }
+
+        if (dcp.getBinaryType() == DbfColumnTypes.Currency) {
+            DbfHelper.writeLongLE(rec, dcp.getOffset(), value);
+            return;
+        }
+        if (dcp.getBinaryType() == DbfColumnTypes.Integer) {
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+            }
+            DbfHelper.writeIntLE(rec, dcp.getOffset(), (int) value);
+            return;
+        }
+
+        // negative magnitude has no overflow for Long.MIN_VALUE
+        boolean negative = value < 0;
+        long magnitude = negative ? value : -value;
+        int digits = 1;
+        for (long rest = magnitude / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, dec + 1);
+        int length = digits + (dec > 0 ? 1 : 0) + (negative ? 1 : 0);
+        if (length > dcp.getColumnLength()) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+        }
+
+        int pos = dcp.getOffset() + dcp.getColumnLength() - 1;
+        for (int i = 0; i < digits; i++) {
+            if (dec > 0 && i == dec) {
+                rec[pos--] = '.';
+            }
+            rec[pos--] = (byte) ('0' - magnitude % 10);
+            magnitude /= 10;
+        }
+        if (negative) {
+            rec[pos--] = '-';
+        }
+        while (pos >= dcp.getOffset()) {
+            rec[pos--] = DbfConstants.DBF_REC_FILLSYMB;
+        }
+    }
+
+    /**
+     * Sets the designated datetime parameter (Visual Foxpro) to the given Java <code>LocalDateTime</code> value.
+     * Precision of value is reduced to milliseconds.
+     *
+     * @param colName xBase field name
+     * @param value   value
+     * @since 1.13
+     */
+    public void setLocalDateTime(String colName, LocalDateTime value) {
+        if (value != null) {
+            setLocalDateTime(definePosition(colName, DbfColumnTypes.DateTime), value);
+        }
+    }
+
+    /**
+     * Sets the designated datetime parameter (Visual Foxpro) to the given Java <code>LocalDateTime</code> value.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setLocalDateTime(String, LocalDateTime)
+     * @since 1.13
+     */
+    public void setLocalDateTime(DbfColumn column, LocalDateTime value) {
+        if (value != null) {
+            setLocalDateTime(columnPosition(column, DbfColumnTypes.DateTime), value);
+        }
+    }
+
+    private void setLocalDateTime(DbfColumnPosition dcp, LocalDateTime value) {
+        long epochMillis = value.toEpochSecond(ZoneOffset.UTC) * 1000L + value.getNano() / 1000000;
+        DbfHelper.writeDateTime(rec, dcp.getOffset(), epochMillis);
+        clearNullBit(dcp);
+    }
+
+    /**
+     * Sets the designated varbinary parameter (Visual Foxpro) to the given bytes. Rest of field is filled by zeros.
+     *
+     * @param colName xBase field name
+     * @param value   value
+     * @since 1.13
+     */
+    public void setBytes(String colName, byte[] value) {
+        if (value != null) {
+            setBytes(definePosition(colName, DbfColumnTypes.Varbinary), colName, value);
+        }
+    }
+
+    /**
+     * Sets the designated varbinary parameter (Visual Foxpro) to the given bytes.
+     *
+     * @param column column of dbf header
+     * @param value  value
+     * @see #setBytes(String, byte[])
+     * @since 1.13
+     */
+    public void setBytes(DbfColumn column, byte[] value) {
+        if (value != null) {
+            setBytes(columnPosition(column, DbfColumnTypes.Varbinary), column.getColumnName(), value);
+        }
+    }
+
+    private void setBytes(DbfColumnPosition dcp, String colName, byte[] value) {
+        if (value.length > dcp.getColumnLength()) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+        }
+        System.arraycopy(value, 0, rec, dcp.getOffset(), value.length);
+        Arrays.fill(rec, dcp.getOffset() + value.length, dcp.getOffset() + dcp.getColumnLength(), (byte) 0);
+        setValueLength(dcp, value.length);
+        clearNullBit(dcp);
+    }
+
+    /**
+     * Marks varchar (varbinary) value which is shorter than field: its length is kept in the last byte of field.
+     */
+    private void setValueLength(DbfColumnPosition dcp, int length) {
+        int varLengthByte = dcp.getVarLengthByte();
+        if (varLengthByte < 0) {
+            return;
+        }
+        if (length < dcp.getColumnLength()) {
+            rec[dcp.getOffset() + dcp.getColumnLength() - 1] = (byte) length;
+            rec[varLengthByte] |= dcp.getVarLengthMask();
+        } else {
+            rec[varLengthByte] &= ~dcp.getVarLengthMask();
+        }
+    }
+
+    private void clearNullBit(DbfColumnPosition dcp) {
+        if (dcp.getNullByte() >= 0) {
+            rec[dcp.getNullByte()] &= ~dcp.getNullMask();
+        }
+    }
+
+    /**
+     * Sets the designated parameter to null value. Null value of nullable field of Visual Foxpro is kept as bit
+     * of hidden <code>_NullFlags</code> field. For dbf files without <code>_NullFlags</code> field the field is
+     * cleared, since empty field is null for them.
+     *
+     * @param colName xBase field name
+     * @since 1.13
+     */
+    public void setNull(String colName) {
+        setNull(dbfHeader.getDbfColumn(colName));
+    }
+
+    /**
+     * Sets the designated parameter to null value.
+     *
+     * @param column column of dbf header
+     * @see #setNull(String)
+     * @since 1.13
+     */
+    public void setNull(DbfColumn column) {
+        DbfColumnPosition dcp = columnPosition(column, column.getDbfColumnType());
+        if (dcp.getNullByte() < 0 && (dbfHeader.hasNullFlags() || column.isBinary())) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOT_NULLABLE + column.getColumnName());
+        }
+        System.arraycopy(emptyRec, dcp.getOffset(), rec, dcp.getOffset(), dcp.getColumnLength());
+        if (dcp.getVarLengthByte() >= 0) {
+            rec[dcp.getVarLengthByte()] &= ~dcp.getVarLengthMask();
+        }
+        if (dcp.getNullByte() >= 0) {
+            rec[dcp.getNullByte()] |= dcp.getNullMask();
+        }
+    }
+
+    /**
+     * Sets the designated memo parameter to the given Java <code>String</code> value. The text is appended into
+     * memo file (.fpt) which has the same name as dbf file, and the record keeps number of its first block.
+     *
+     * @param colName xBase field name (memo or general)
+     * @param value   value
+     * @since 1.13
+     */
+    public void setMemo(String colName, String value) {
+        if (value != null) {
+            setMemo(definePosition(colName, MEMO_TYPES), value);
+        }
+    }
+
+    /**
+     * Sets the designated memo parameter to the given Java <code>String</code> value.
+     *
+     * @param column column of dbf header (memo or general)
+     * @param value  value
+     * @see #setMemo(String, String)
+     * @since 1.13
+     */
+    public void setMemo(DbfColumn column, String value) {
+        if (value != null) {
+            setMemo(columnPosition(column, MEMO_TYPES), value);
+        }
+    }
+
+    /**
+     * Sets the designated memo parameter to the given bytes.
+     *
+     * @param colName xBase field name (memo or general)
+     * @param value   value
+     * @see #setMemo(String, String)
+     * @since 1.13
+     */
+    public void setMemo(String colName, byte[] value) {
+        if (value != null) {
+            setMemoBytes(definePosition(colName, MEMO_TYPES), value);
+        }
+    }
+
+    /**
+     * Sets the designated memo parameter to the given bytes.
+     *
+     * @param column column of dbf header (memo or general)
+     * @param value  value
+     * @see #setMemo(String, String)
+     * @since 1.13
+     */
+    public void setMemo(DbfColumn column, byte[] value) {
+        if (value != null) {
+            setMemoBytes(columnPosition(column, MEMO_TYPES), value);
+        }
+    }
+
+    private void setMemo(DbfColumnPosition dcp, String value) {
+        byte[] val = null;
+        if (charTable != null) {
+            val = charTable.encode(value);
+        }
+        try {
+            if (val == null) {
+                val = value.getBytes(dbfCodePage.getCharsetName());
             }
-            fillRec(dcp, oneByte);
+        } catch (UnsupportedEncodingException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_CP, e);
         }
+        setMemoBytes(dcp, val);
     }
 
-    private void setNumeric(String colName, BigDecimal value) {
-        DbfColumnPosition dcp = definePosition(colName, DbfColumnTypes.Numeric);
+    private void setMemoBytes(DbfColumnPosition dcp, byte[] value) {
+        if (memoAppender == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_MEMO_NOT_ALLOWED);
+        }
+        long block = memoAppender.getMemoWriter().writeMemo(value);
+        DbfMemoWriter.fillBlockNumber(rec, dcp, block);
+        clearNullBit(dcp);
+    }
+
+    private void setNumeric(DbfColumnPosition dcp, String colName, BigDecimal value) {
+        if (dcp.getBinaryType() == DbfColumnTypes.Currency) {
+            BigInteger unscaled;
+            try {
+                unscaled = value.setScale(CURRENCY_SCALE).unscaledValue();
+            } catch (ArithmeticException e) {
+                throw new DbfEngineException(DbfConstants.EXCP_CP_ARITHERR, e);
+            }
+            if (unscaled.bitLength() > 63) {
+                throw new DbfEngineException(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + colName);
+            }
+            DbfHelper.writeLongLE(rec, dcp.getOffset(), unscaled.longValue());
+            clearNullBit(dcp);
+            return;
+        }
         BigDecimal bigval = value;
         if (dcp.getColumnDotAmount() > 0) {
             try {
@@ -199,6 +883,7 @@ public class DbfStatement {
         }
         byte[] val = numStr.getBytes();
         fillRecInverse(dcp, val);
+        clearNullBit(dcp);
     }
 
     private void fillRecInverse(DbfColumnPosition dcp, byte[] val) {
@@ -208,7 +893,8 @@ public class DbfStatement {
             if (k >= 0) {
                 rec[i] = val[k];
             } else {
-                break;
+                // rest of field may be filled by previous value
+                rec[i] = DbfConstants.DBF_REC_FILLSYMB;
             }
             k--;
         }
@@ -221,13 +907,13 @@ public class DbfStatement {
             if (k < val.length) {
                 rec[i] = val[k];
             } else {
-                break;
+                rec[i] = DbfConstants.DBF_REC_FILLSYMB;
             }
             k++;
         }
     }
 
-    private DbfColumnPosition definePosition(String colName, DbfColumnTypes dct) {
+    private DbfColumnPosition definePosition(String colName, DbfColumnTypes... dcts) {
         DbfColumnPosition dbfColumnPos = mapColumnPos
                 .get(colName.toUpperCase());
         if (dbfColumnPos == null) {
@@ -236,7 +922,7 @@ public class DbfStatement {
                 throw new DbfEngineException(DbfConstants.EXCP_COLUMN_NOEXISTS
                         + colName);
             }
-            if (dbfColumn.getDbfColumnType().compareTo(dct) != 0) {
+            if (!isRequiredType(dbfColumn, dcts)) {
                 throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
                         + colName);
             }
@@ -247,8 +933,72 @@ public class DbfStatement {
         return dbfColumnPos;
     }
 
+    private static boolean isRequiredType(DbfColumn dbfColumn, DbfColumnTypes[] dcts) {
+        for (DbfColumnTypes dct : dcts) {
+            if (dbfColumn.getDbfColumnType() == dct) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn dbfColumn, DbfColumnTypes[] dcts) {
+        DbfColumn column = dbfHeader.resolveColumn(dbfColumn);
+        if (!isRequiredType(column, dcts)) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
+                    + column.getColumnName());
+        }
+        return column.getDbfColumnPosition();
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn column, DbfColumnTypes dct) {
+        return columnPosition(column, dct, dct);
+    }
+
+    private DbfColumnPosition columnPosition(DbfColumn dbfColumn, DbfColumnTypes dct, DbfColumnTypes altDct) {
+        DbfColumn column = dbfHeader.resolveColumn(dbfColumn);
+        if (column.getDbfColumnType() != dct && column.getDbfColumnType() != altDct) {
+            throw new DbfEngineException(DbfConstants.EXCP_COLUMN_COL_TYPE
+                    + column.getColumnName());
+        }
+        return column.getDbfColumnPosition();
+    }
+
+    /**
+     * Fills current record by values of record of other dbf file. Columns are matched by names and copied
+     * as bytes without decoding, so types and widths of matched columns must be equal. Columns which are
+     * missed in source record are not changed.
+     * <br>
+     * Memos of source record are read from its memo file and appended into memo file of this dbf file.
+     * Statement of updater keeps block numbers as is, because the record is filled from the same file.
+     *
+     * @param dbfRecord source record
+     * @since 1.12
+     */
     public void fillStatement(DbfRecord dbfRecord) {
-        System.arraycopy(dbfRecord.getRecord(), 0, rec, 0, rec.length);
+        if (recordMapping == null || recordMapping.getSourceHeader() != dbfRecord.getDbfHeader()) {
+            recordMapping = new DbfRecordMapping(dbfRecord.getDbfHeader(), dbfHeader);
+        }
+        recordMapping.copy(dbfRecord.getRecord(), rec);
+        if (memoAppender != null) {
+            copyMemos(dbfRecord);
+        }
+    }
+
+    /**
+     * Replaces block numbers copied from source record by block numbers of memos appended into memo file
+     * of this dbf file.
+     */
+    private void copyMemos(DbfRecord dbfRecord) {
+        DbfColumn[] sources = recordMapping.getMemoSources();
+        DbfColumn[] targets = recordMapping.getMemoTargets();
+        for (int i = 0; i < sources.length; i++) {
+            // empty memo is copied as is and memo file is not needed for it
+            if (dbfRecord.getMemoBlock(sources[i].getDbfColumnPosition()) != 0) {
+                long block = dbfRecord.copyMemo(sources[i], memoAppender.getMemoWriter());
+                DbfMemoWriter.fillBlockNumber(rec, targets[i].getDbfColumnPosition(), block);
+            }
+        }
     }
 
 }
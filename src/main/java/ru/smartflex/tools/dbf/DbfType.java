@@ -10,13 +10,15 @@ public class DbfType {
 
     private final static int FoxBase = 0x02;
     public final static int FoxBASE_dBASE_III_PLUS_without_memo = 0x03;
-    private final static int Visual_FoxPro = 0x30;
+    public final static int Visual_FoxPro = 0x30;
+    public final static int Visual_FoxPro_autoincrement = 0x31;
+    public final static int Visual_FoxPro_varchar = 0x32;
     private final static int dBASE_IV_SQL_without_memo = 0x43;
     private final static int dBASE_IV_SQL_system_without_memo = 0x33;
     private final static int FoxBASE_PLUS_dBASE_III_PLUS_with_memo = 0x83;
     private final static int dBASE_IV_with_memo = 0x8B;
     private final static int dBASE_IV_SQL_with_memo = 0xCB;
-    private final static int FoxPro_2_x_with_memo = 0xF5;
+    public final static int FoxPro_2_x_with_memo = 0xF5;
     private final static int FoxBASE = 0xFB;
 
     private DbfType() {
@@ -40,6 +42,12 @@ public class DbfType {
             case Visual_FoxPro:
                 ret = "Visual_FoxPro";
                 break;
+            case Visual_FoxPro_autoincrement:
+                ret = "Visual_FoxPro_autoincrement";
+                break;
+            case Visual_FoxPro_varchar:
+                ret = "Visual_FoxPro_varchar";
+                break;
             case dBASE_IV_SQL_without_memo:
                 ret = "dBASE_IV_SQL_without_memo";
                 break;
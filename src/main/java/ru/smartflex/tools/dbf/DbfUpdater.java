@@ -0,0 +1,286 @@
+package ru.smartflex.tools.dbf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The class <code>DbfUpdater</code> changes records of existed dbf file in place. Position of record is calculated
+ * from dbf header, so there is no reading of previous records. Changes are collected in dirty pages which are
+ * written in order of file position by {@link #flush()}, when there are too many dirty pages or when updater
+ * is closed. Only changed part of every page is written.
+ * <br>
+ * Sample of usage:
+ *
+ * <pre>
+ * DbfUpdater dbfUpdater = DbfEngine.getUpdater(dbfFile, null);
+ * dbfUpdater.delete(10);
+ *
+ * DbfStatement statement = dbfUpdater.loadStatement(20);
+ * statement.setString("name", "Bye-bye");
+ * dbfUpdater.updateRecord(20);
+ *
+ * dbfUpdater.close();
+ * </pre>
+ *
+ * @author galisha
+ * @since 1.13
+ */
+public class DbfUpdater {
+
+    static final int PAGE_SIZE = 8 * 1024;
+    static final int MAX_DIRTY_PAGES = 512;
+
+    private static class Page {
+        private byte[] data = new byte[PAGE_SIZE];
+        private int dirtyFrom = PAGE_SIZE;
+        private int dirtyTo = 0;
+    }
+
+    private DbfHeader dbfHeader;
+    private FileChannel channel;
+    private int lengthRecord;
+    private int countRecords;
+    private DbfStatement dbfStatement = null;
+    private byte[] record;
+    private DbfRecord dbfRecord;
+    private Map<Long, Page> dirtyPages = new TreeMap<Long, Page>();
+    private boolean changed = false;
+
+    DbfUpdater(File dbfFile, DbfHeader dbfHeader) {
+        this.dbfHeader = dbfHeader;
+        this.lengthRecord = dbfHeader.getLengthRecord();
+        this.countRecords = dbfHeader.getCountRecords();
+        try {
+            channel = new RandomAccessFile(dbfFile, "rw").getChannel();
+        } catch (FileNotFoundException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_DBF_NOT_EXISTS, e);
+        }
+        record = new byte[lengthRecord];
+        dbfRecord = new DbfRecord(record, dbfHeader);
+    }
+
+    /**
+     * Returns header of dbf file.
+     *
+     * @return dbf header
+     * @since 1.13
+     */
+    public DbfHeader getDbfHeader() {
+        return dbfHeader;
+    }
+
+    /**
+     * Returns statement whose record is written by {@link #updateRecord(int)}. The statement can not
+     * insert records.
+     *
+     * @return statement of updater
+     * @since 1.13
+     */
+    public DbfStatement getStatement() {
+        checkOpen();
+        if (dbfStatement == null) {
+            dbfStatement = new DbfStatement(dbfHeader, dbfHeader.getDbfCodePages(), null, null);
+        }
+        return dbfStatement;
+    }
+
+    /**
+     * Fills statement by current content of record, so only fields which are set later are changed
+     * by {@link #updateRecord(int)}.
+     *
+     * @param recNo record number, starting from zero
+     * @return statement of updater
+     * @since 1.13
+     */
+    public DbfStatement loadStatement(int recNo) {
+        DbfStatement statement = getStatement();
+        statement.fillStatement(readRecord(recNo));
+        return statement;
+    }
+
+    /**
+     * Overwrites record by record of statement. Statement is cleared after that.
+     *
+     * @param recNo record number, starting from zero
+     * @since 1.13
+     */
+    public void updateRecord(int recNo) {
+        DbfStatement statement = getStatement();
+        write(recordPosition(recNo), statement.getRecord(), 0, lengthRecord);
+        statement.clearStatement();
+    }
+
+    /**
+     * Marks record as deleted (DELETE command of xBase).
+     *
+     * @param recNo record number, starting from zero
+     * @since 1.13
+     */
+    public void delete(int recNo) {
+        setDeletedFlag(recNo, DbfConstants.DELETED_MARKER);
+    }
+
+    /**
+     * Removes deleted mark of record (RECALL command of xBase).
+     *
+     * @param recNo record number, starting from zero
+     * @since 1.13
+     */
+    public void recall(int recNo) {
+        setDeletedFlag(recNo, (byte) DbfConstants.DBF_REC_FILLSYMB);
+    }
+
+    /**
+     * Overwrites part of record.
+     */
+    void updateBytes(int recNo, byte[] src, int offset, int length) {
+        write(recordPosition(recNo) + offset, src, offset, length);
+    }
+
+    private void setDeletedFlag(int recNo, byte flag) {
+        write(recordPosition(recNo), new byte[]{flag}, 0, 1);
+    }
+
+    /**
+     * Reads record with changes which are not written yet. Record object is reused for every read.
+     *
+     * @param recNo record number, starting from zero
+     * @return record
+     * @since 1.13
+     */
+    public DbfRecord readRecord(int recNo) {
+        read(recordPosition(recNo), record, 0, lengthRecord);
+        dbfRecord.setCurrentRecord(recNo);
+        return dbfRecord;
+    }
+
+    private long recordPosition(int recNo) {
+        checkOpen();
+        if (recNo < 0 || recNo >= countRecords) {
+            throw new DbfEngineException(DbfConstants.EXCP_REC_NUMBER + recNo);
+        }
+        return dbfHeader.getFirstRecordPosition() + (long) recNo * lengthRecord;
+    }
+
+    private void checkOpen() {
+        if (channel == null) {
+            throw new DbfEngineException(DbfConstants.EXCP_UPDATER_CLOSED);
+        }
+    }
+
+    private void write(long position, byte[] src, int offset, int length) {
+        int done = 0;
+        while (done < length) {
+            long pos = position + done;
+            long pageIndex = pos / PAGE_SIZE;
+            int pageOffset = (int) (pos % PAGE_SIZE);
+            int count = Math.min(length - done, PAGE_SIZE - pageOffset);
+            Page page = dirtyPages.get(pageIndex);
+            if (page == null) {
+                if (dirtyPages.size() >= MAX_DIRTY_PAGES) {
+                    flush();
+                }
+                page = new Page();
+                readFromChannel(pageIndex * PAGE_SIZE, page.data, 0, PAGE_SIZE);
+                dirtyPages.put(pageIndex, page);
+            }
+            System.arraycopy(src, offset + done, page.data, pageOffset, count);
+            page.dirtyFrom = Math.min(page.dirtyFrom, pageOffset);
+            page.dirtyTo = Math.max(page.dirtyTo, pageOffset + count);
+            done += count;
+        }
+        changed = true;
+    }
+
+    private void read(long position, byte[] dst, int offset, int length) {
+        int done = 0;
+        while (done < length) {
+            long pos = position + done;
+            long pageIndex = pos / PAGE_SIZE;
+            int pageOffset = (int) (pos % PAGE_SIZE);
+            int count = Math.min(length - done, PAGE_SIZE - pageOffset);
+            Page page = dirtyPages.get(pageIndex);
+            if (page != null) {
+                System.arraycopy(page.data, pageOffset, dst, offset + done, count);
+            } else {
+                readFromChannel(pos, dst, offset + done, count);
+            }
+            done += count;
+        }
+    }
+
+    /**
+     * Reads bytes from file. Bytes after end of file are not changed.
+     */
+    private void readFromChannel(long position, byte[] dst, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(dst, offset, length);
+        try {
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                int numRead = channel.read(buffer, pos);
+                if (numRead == -1) {
+                    break;
+                }
+                pos += numRead;
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Writes changed parts of dirty pages into file in order of position.
+     *
+     * @since 1.13
+     */
+    public void flush() {
+        checkOpen();
+        try {
+            for (Map.Entry<Long, Page> entry : dirtyPages.entrySet()) {
+                Page page = entry.getValue();
+                ByteBuffer buffer = ByteBuffer.wrap(page.data, page.dirtyFrom, page.dirtyTo - page.dirtyFrom);
+                long pos = entry.getKey() * PAGE_SIZE + page.dirtyFrom;
+                while (buffer.hasRemaining()) {
+                    pos += channel.write(buffer, pos);
+                }
+            }
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        }
+        dirtyPages.clear();
+    }
+
+    /**
+     * Writes changes, updates date of last change in header and closes file.
+     *
+     * @since 1.13
+     */
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flush();
+            if (changed) {
+                byte[] dateAndCount = new byte[7];
+                DbfAppender.fillDateAndCount(dateAndCount, 0, countRecords);
+                ByteBuffer buffer = ByteBuffer.wrap(dateAndCount, 0, 3);
+                long pos = 1;
+                while (buffer.hasRemaining()) {
+                    pos += channel.write(buffer, pos);
+                }
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new DbfEngineException(DbfConstants.EXCP_IO_ERROR, e);
+        } finally {
+            channel = null;
+        }
+    }
+}
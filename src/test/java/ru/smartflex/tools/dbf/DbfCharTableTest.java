@@ -0,0 +1,42 @@
+package ru.smartflex.tools.dbf;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DbfCharTableTest {
+
+    @Test
+    public void testDecodeAsJdk() throws UnsupportedEncodingException {
+        String[] charsets = {"Cp866", "Cp1251", "Cp437", "Cp850", "Cp1252"};
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        for (String charset : charsets) {
+            DbfCharTable table = DbfCharTable.forCharset(charset);
+            assertEquals(new String(all, 0, 256, charset), table.decode(all, 0, 256));
+            assertEquals(new String(all, 65, 10, charset), table.decode(all, 65, 10));
+            assertEquals(new String(all, 200, 20, charset), table.decode(all, 200, 20));
+        }
+    }
+
+    @Test
+    public void testEncode() throws UnsupportedEncodingException {
+        DbfCharTable table = DbfCodePages.Cp866.getCharTable();
+        String value = "Hello, Привет!";
+        assertArrayEquals(value.getBytes("Cp866"), table.encode(value));
+        // symbol absent in code page
+        assertNull(table.encode("€"));
+    }
+
+    @Test
+    public void testMultiByte() {
+        assertNull(DbfCodePages.MS932.getCharTable());
+        assertNull(DbfCodePages.ANSI.getCharTable());
+    }
+}
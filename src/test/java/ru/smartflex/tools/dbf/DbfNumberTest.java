@@ -0,0 +1,44 @@
+package ru.smartflex.tools.dbf;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class DbfNumberTest {
+
+    private DbfNumber number = new DbfNumber();
+
+    private int parse(String field, boolean separators) {
+        byte[] rec = field.getBytes();
+        return number.parse(rec, 0, rec.length, separators);
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(DbfNumber.EMPTY, parse("          ", false));
+
+        assertEquals(DbfNumber.PARSED, parse("    120.44", false));
+        assertEquals(new BigDecimal("120.44"), number.bigDecimalValue());
+        assertEquals(120.44d, number.doubleValue(), 0.0d);
+
+        assertEquals(DbfNumber.PARSED, parse("   -3.5566", false));
+        assertEquals(-3.5566f, number.floatValue(), 0.0f);
+
+        assertEquals(DbfNumber.PARSED, parse("      1219", false));
+        assertEquals(true, number.isIntegral());
+        assertEquals(1219L, number.longValue());
+    }
+
+    @Test
+    public void testParseBadNumeric() {
+        assertEquals(DbfNumber.UNPARSED, parse("1219,.0000", false));
+        assertEquals(DbfNumber.PARSED, parse("1219,.0000", true));
+        assertEquals(new BigDecimal("1219.0000"), number.bigDecimalValue());
+
+        assertEquals(DbfNumber.UNPARSED, parse("   1.5E+10", true));
+        assertEquals(DbfNumber.UNPARSED, parse("         -", true));
+        assertEquals(DbfNumber.UNPARSED, parse("1234567890123456789", true));
+    }
+}
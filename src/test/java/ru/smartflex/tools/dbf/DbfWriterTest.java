@@ -5,11 +5,24 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class DbfWriterTest {
 
@@ -90,11 +103,862 @@ public class DbfWriterTest {
         writeDbf.delete();
     }
 
+    @Test
+    public void testAppendOverEndOfFileMarker() throws Exception {
+        File writeDbf = new File("WRT_PERSON.DBF");
+        if (writeDbf.exists()) {
+            writeDbf.delete();
+        }
+
+        writeTwoRecordsToDbf(writeDbf);
+        FileOutputStream fos = new FileOutputStream(writeDbf, true);
+        fos.write(DbfConstants.DBF_END_OF_FILE);
+        fos.close();
+
+        DbfAppender dbfAppender = DbfEngine.getAppender(writeDbf, "Cp866");
+        DbfStatement statement = dbfAppender.getStatement();
+        statement.setString("actor", "Jean-Claude Van Damme");
+        statement.insertStatement();
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        assertEquals(3, dbfHeader.getCountRecords());
+        assertEquals(dbfHeader.getFirstRecordPosition() + 3 * dbfHeader.getLengthRecord() + 1, writeDbf.length());
+
+        String actor = null;
+        while (dbfIterator.hasMoreRecords()) {
+            actor = dbfIterator.nextRecord().getString("actor");
+        }
+        assertEquals("Jean-Claude Van Damme", actor);
+        dbfIterator.closeIterator();
+
+        RandomAccessFile raf = new RandomAccessFile(writeDbf, "r");
+        raf.seek(writeDbf.length() - 1);
+        assertEquals(DbfConstants.DBF_END_OF_FILE, raf.readByte());
+        raf.close();
+
+        writeDbf.delete();
+    }
+
+    @Test
+    public void testWriteBatch() {
+        File writeDbf = new File("WRT_PERSON.DBF");
+        if (writeDbf.exists()) {
+            writeDbf.delete();
+        }
+
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("num", DbfColumnTypes.Numeric, 6, 0));
+        DbfColumn num = dbfAppender.getDbfHeader().getDbfColumn("num");
+
+        DbfStatement statement = dbfAppender.getStatement();
+        // three records of 7 bytes
+        statement.setWriteBufferSize(25);
+        for (int i = 0; i < 10; i++) {
+            statement.setBigDecimal(num, new BigDecimal(i));
+            statement.addBatch();
+        }
+        assertEquals(1, statement.executeBatch());
+        assertEquals(0, statement.executeBatch());
+
+        statement.setBigDecimal(num, new BigDecimal(10));
+        statement.addBatch();
+        statement.flush();
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        assertEquals(11, dbfIterator.getDbfHeader().getCountRecords());
+        int expected = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            assertEquals(expected++, dbfIterator.nextRecord().getBigDecimal("num").intValue());
+        }
+        assertEquals(11, expected);
+        dbfIterator.closeIterator();
+
+        writeDbf.delete();
+    }
+
+    @Test
+    public void testPrimitiveSetters() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        DbfAppender dbfAppender = DbfEngine.getWriter(bos, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("sum_n", DbfColumnTypes.Numeric, 10, 2),
+                new DbfColumn("cnt", DbfColumnTypes.Numeric, 5, 0),
+                new DbfColumn("sum_f", DbfColumnTypes.Float, 10, 4),
+                new DbfColumn("date_val", DbfColumnTypes.Date, 0, 0));
+        DbfColumn sumN = dbfAppender.getDbfHeader().getDbfColumn("sum_n");
+
+        DbfStatement statement = dbfAppender.getStatement();
+        statement.setDouble(sumN, 120.445);
+        statement.setInt("cnt", -1234);
+        statement.setScaledLong("sum_f", 24456, 4);
+        statement.setEpochDay("date_val", LocalDate.of(1912, 1, 2).toEpochDay());
+        statement.insertStatement();
+
+        statement.setScaledLong(sumN, -1599, 2);
+        statement.setLong("cnt", 99999);
+        statement.setDouble("sum_f", -0.5);
+        statement.setEpochDay("date_val", LocalDate.of(2000, 2, 29).toEpochDay());
+        statement.insertStatement();
+
+        // second value of the same column overwrites whole field
+        statement.setInt(sumN, 123456);
+        statement.setInt(sumN, 7);
+        statement.setScaledLong("cnt", 1200, 2);
+        statement.insertStatement();
+
+        // 1.005 is kept as 1.00499999... by double, but it is rounded as decimal value
+        statement.setDouble(sumN, 1.005);
+        statement.setDouble("cnt", -2.5);
+        statement.insertStatement();
+
+        try {
+            statement.setInt("cnt", 100000);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + "cnt", e.getMessage());
+        }
+        try {
+            statement.setInt("cnt", -10000);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + "cnt", e.getMessage());
+        }
+        try {
+            statement.setScaledLong("cnt", 1201, 2);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_CP_ARITHERR, e.getMessage());
+        }
+        try {
+            statement.setDouble("cnt", 1e19);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_COLUMN_VAL_TOO_BIG + "cnt", e.getMessage());
+        }
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(new ByteArrayInputStream(bos.toByteArray()), null);
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals(new BigDecimal("120.45"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(-1234, dbfRecord.getInt("cnt"));
+        assertEquals(2.4456d, dbfRecord.getDouble("sum_f"), 0.0d);
+        assertEquals(19120102, dbfRecord.getDateAsInt("date_val"));
+
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(new BigDecimal("-15.99"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(99999, dbfRecord.getInt("cnt"));
+        assertEquals(-0.5d, dbfRecord.getDouble("sum_f"), 0.0d);
+        assertEquals(20000229, dbfRecord.getDateAsInt("date_val"));
+
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(new BigDecimal("7.00"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(12, dbfRecord.getInt("cnt"));
+
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(new BigDecimal("1.01"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(-3, dbfRecord.getInt("cnt"));
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testInsertParallel() {
+        for (boolean ordered : new boolean[]{true, false}) {
+            File writeDbf = new File("WRT_PERSON.DBF");
+            if (writeDbf.exists()) {
+                writeDbf.delete();
+            }
+
+            DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+            dbfAppender.defineColumns(new DbfColumn("num", DbfColumnTypes.Numeric, 6, 0));
+            final DbfColumn num = dbfAppender.getDbfHeader().getDbfColumn("num");
+
+            DbfStatement statement = dbfAppender.getStatement();
+            statement.setInt(num, -1);
+            statement.insertStatement();
+
+            dbfAppender.insertParallel(4, ordered, new DbfRecordProducer() {
+                public void produceRecords(int producer, DbfStatement statement) {
+                    statement.setWriteBufferSize(70);
+                    for (int i = producer * 1000; i < (producer + 1) * 1000; i++) {
+                        statement.setInt(num, i);
+                        statement.insertStatement();
+                    }
+                }
+            });
+            dbfAppender.writeDbfAndClose();
+
+            DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+            assertEquals(4001, dbfIterator.getDbfHeader().getCountRecords());
+            assertEquals(-1, dbfIterator.nextRecord().getInt("num"));
+            BitSet values = new BitSet();
+            int expected = 0;
+            while (dbfIterator.hasMoreRecords()) {
+                int value = dbfIterator.nextRecord().getInt("num");
+                if (ordered) {
+                    assertEquals(expected++, value);
+                }
+                values.set(value);
+            }
+            assertEquals(4000, values.cardinality());
+            dbfIterator.closeIterator();
+
+            writeDbf.delete();
+        }
+    }
+
+    @Test
+    public void testCopyAndConcat() throws IOException {
+        File srcDbf = new File("WRT_PERSON.DBF");
+        File copyDbf = new File("WRT_PERSON_COPY.DBF");
+        srcDbf.delete();
+        copyDbf.delete();
+        writeTwoRecordsToDbf(srcDbf);
+
+        assertEquals(2, DbfEngine.copy(srcDbf, copyDbf, null));
+        DbfIterator dbfIterator = DbfEngine.getReader(copyDbf, null);
+        assertEquals(2, dbfIterator.getDbfHeader().getCountRecords());
+        dbfIterator.goTo(1);
+        assertEquals("Bruce Lee", dbfIterator.nextRecord().getString("actor"));
+        dbfIterator.closeIterator();
+        copyDbf.delete();
+
+        assertEquals(1, DbfEngine.copy(srcDbf, copyDbf,
+                DbfFilter.where("hit", DbfOperator.LT, new BigDecimal("600"))));
+        dbfIterator = DbfEngine.getReader(copyDbf, null);
+        assertEquals(1, dbfIterator.getDbfHeader().getCountRecords());
+        assertEquals("Chuck Norris", dbfIterator.nextRecord().getString("actor"));
+        dbfIterator.closeIterator();
+        copyDbf.delete();
+
+        assertEquals(4, DbfEngine.concat(copyDbf, srcDbf, srcDbf));
+        dbfIterator = DbfEngine.getReader(copyDbf, null);
+        assertEquals(4, dbfIterator.getDbfHeader().getCountRecords());
+        dbfIterator.goTo(3);
+        assertEquals("Bruce Lee", dbfIterator.nextRecord().getString("actor"));
+        dbfIterator.closeIterator();
+        copyDbf.delete();
+
+        assertEquals(1, DbfEngine.copy(srcDbf, copyDbf, 1, 1));
+        dbfIterator = DbfEngine.getReader(copyDbf, null);
+        assertEquals(1, dbfIterator.getDbfHeader().getCountRecords());
+        assertEquals("Bruce Lee", dbfIterator.nextRecord().getString("actor"));
+        dbfIterator.closeIterator();
+        copyDbf.delete();
+        try {
+            DbfEngine.copy(srcDbf, copyDbf, 1, 2);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_REC_NUMBER + 3, e.getMessage());
+        }
+        assertFalse(copyDbf.exists());
+
+        // text of file with other code page would be decoded by code page of the first file
+        File otherDbf = new File("WRT_PERSON_1251.DBF");
+        otherDbf.delete();
+        Files.copy(srcDbf.toPath(), otherDbf.toPath());
+        RandomAccessFile raf = new RandomAccessFile(otherDbf, "rw");
+        raf.seek(29);
+        raf.write(0xC9);
+        raf.close();
+        try {
+            DbfEngine.concat(copyDbf, srcDbf, otherDbf);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_DBF_STRUCTURE + otherDbf.getName(), e.getMessage());
+        }
+        assertFalse(copyDbf.exists());
+        otherDbf.delete();
+
+        // block numbers of memo fields would point to memo file which is not copied
+        File memoDbf = TestHelper.getResourceFile("FP_26_SAMPLE.DBF");
+        try {
+            DbfEngine.concat(copyDbf, srcDbf, memoDbf);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_DBF_COPY_MEMO + memoDbf.getName(), e.getMessage());
+        }
+        assertFalse(copyDbf.exists());
+        srcDbf.delete();
+    }
+
+    @Test
+    public void testProjectionCloning() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        assertEquals(1, new DbfRecordMapping(dbfHeader, dbfHeader).getRunCount());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DbfAppender dbfAppender = DbfEngine.getWriter(bos, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(dbfHeader, "bool_val", "string", "sum_n", "sum_f");
+        // flag, BOOL_VAL and STRING + SUM_N + SUM_F
+        assertEquals(3, new DbfRecordMapping(dbfHeader, dbfAppender.getDbfHeader()).getRunCount());
+
+        DbfStatement statement = dbfAppender.getStatement();
+        while (dbfIterator.hasMoreRecords()) {
+            statement.fillStatement(dbfIterator.nextRecord());
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getReader(new ByteArrayInputStream(bos.toByteArray()), null);
+        assertEquals(4, dbfIterator.getDbfHeader().getCountColumns());
+        assertEquals(3, dbfIterator.getDbfHeader().getCountRecords());
+        assertEquals("BOOL_VAL", dbfIterator.getDbfHeader().getDbfColumn(0).getColumnName());
+        dbfIterator.nextRecord();
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals("Hello", dbfRecord.getString("string"));
+        assertEquals(new BigDecimal("120.44"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(2.4456d, dbfRecord.getDouble("sum_f"), 0.0d);
+        assertEquals(true, dbfRecord.getBoolean("bool_val"));
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testColumnsOfOtherHeader() {
+        File dbfFile = TestHelper.getResourceFile("FP_26_SAMPLE.DBF");
+        DbfHeader otherHeader = DbfEngine.getHeader(dbfFile, null);
+        DbfIterator dbfIterator = DbfEngine.getReader(dbfFile, null);
+        dbfIterator.nextRecord();
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        // column of other header of the same file is found by name
+        assertEquals("Hello", dbfRecord.getAsString(otherHeader.getDbfColumn("string")));
+        assertEquals(new BigDecimal("120.44"), dbfRecord.getBigDecimal(otherHeader.getDbfColumn("sum_n")));
+
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        DbfColumn string = dbfHeader.getDbfColumn("string");
+        DbfColumn sumN = dbfHeader.getDbfColumn("sum_n");
+        int stringIndex = string.getColumnIndex();
+        int stringOffset = string.getDbfColumnPosition().getOffset();
+        DbfAppender dbfAppender = DbfEngine.getWriter(new ByteArrayOutputStream(), DbfCodePages.Cp866);
+        dbfAppender.defineColumns(sumN, string);
+        // columns of reader are copied by appender
+        assertEquals(stringIndex, string.getColumnIndex());
+        assertEquals(stringOffset, string.getDbfColumnPosition().getOffset());
+        assertTrue(dbfAppender.getDbfHeader().getDbfColumn("string") != string);
+        assertEquals("Hello", dbfRecord.getString(string));
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testUpdater() throws IOException {
+        File srcDbf = TestHelper.getResourceFile("FP_26_SAMPLE.DBF");
+        File updateDbf = new File("FP_26_SAMPLE_UPDATE.DBF");
+        if (updateDbf.exists()) {
+            updateDbf.delete();
+        }
+        Files.copy(srcDbf.toPath(), updateDbf.toPath());
+
+        DbfUpdater dbfUpdater = DbfEngine.getUpdater(updateDbf, null);
+        dbfUpdater.delete(0);
+        dbfUpdater.delete(2);
+        dbfUpdater.recall(2);
+
+        DbfStatement statement = dbfUpdater.loadStatement(1);
+        statement.setString("string", "Hi");
+        statement.setInt("sum_n", 7);
+        dbfUpdater.updateRecord(1);
+        assertEquals("Hi", dbfUpdater.readRecord(1).getString("string"));
+        assertEquals(true, dbfUpdater.readRecord(0).isDeleted());
+
+        try {
+            statement.insertStatement();
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_INSERT_NOT_ALLOWED, e.getMessage());
+        }
+        try {
+            statement.flush();
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_INSERT_NOT_ALLOWED, e.getMessage());
+        }
+        assertEquals(0, statement.executeBatch());
+        try {
+            dbfUpdater.delete(3);
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_REC_NUMBER + 3, e.getMessage());
+        }
+        dbfUpdater.close();
+
+        assertEquals(srcDbf.length(), updateDbf.length());
+        DbfIterator dbfIterator = DbfEngine.getReader(updateDbf, null);
+        assertEquals(true, dbfIterator.nextRecord().isDeleted());
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals(false, dbfRecord.isDeleted());
+        assertEquals("Hi", dbfRecord.getString("string"));
+        assertEquals(new BigDecimal("7.00"), dbfRecord.getBigDecimal("sum_n"));
+        assertEquals(2.4456d, dbfRecord.getDouble("sum_f"), 0.0d);
+        assertEquals(19120102, dbfRecord.getDateAsInt("date_val"));
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(false, dbfRecord.isDeleted());
+        assertEquals("Bye-bye", dbfRecord.getString("string"));
+        dbfIterator.closeIterator();
+
+        updateDbf.delete();
+    }
+
+    @Test
+    public void testPack() {
+        File packDbf = new File("WRT_PERSON.DBF");
+        if (packDbf.exists()) {
+            packDbf.delete();
+        }
+        DbfAppender dbfAppender = DbfEngine.getWriter(packDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("num", DbfColumnTypes.Numeric, 6, 0));
+        DbfStatement statement = dbfAppender.getStatement();
+        for (int i = 0; i < 1000; i++) {
+            statement.setInt("num", i);
+            if (i % 3 == 0) {
+                statement.markAsDeleted();
+            }
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+
+        assertEquals(334, DbfEngine.pack(packDbf));
+        assertEquals(0, DbfEngine.pack(packDbf));
+
+        DbfIterator dbfIterator = DbfEngine.getReader(packDbf, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        assertEquals(666, dbfHeader.getCountRecords());
+        assertEquals(dbfHeader.getFirstRecordPosition() + 666 * dbfHeader.getLengthRecord() + 1, packDbf.length());
+        int count = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            DbfRecord dbfRecord = dbfIterator.nextRecord();
+            assertEquals(false, dbfRecord.isDeleted());
+            assertEquals(count / 2 * 3 + count % 2 + 1, dbfRecord.getInt("num"));
+            count++;
+        }
+        assertEquals(666, count);
+        dbfIterator.closeIterator();
+
+        packDbf.delete();
+    }
+
+    @Test
+    public void testWriteMemo() throws IOException {
+        File writeDbf = new File("WRT_MEMO.DBF");
+        File memoFile = new File("WRT_MEMO.FPT");
+        writeDbf.delete();
+        memoFile.delete();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30000; i++) {
+            sb.append("Long text ");
+        }
+        String longText = sb.toString();
+
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("name", DbfColumnTypes.Character, 10, 0),
+                new DbfColumn("notes", DbfColumnTypes.Memo, 0, 0));
+        DbfStatement statement = dbfAppender.getStatement();
+        statement.setString("name", "short");
+        statement.setMemo("notes", "Привет, memo");
+        statement.insertStatement();
+        statement.setString("name", "empty");
+        statement.insertStatement();
+        statement.setString("name", "long");
+        statement.setMemo("notes", longText);
+        statement.insertStatement();
+        dbfAppender.writeDbfAndClose();
+
+        dbfAppender = DbfEngine.getAppender(writeDbf, null);
+        statement = dbfAppender.getStatement();
+        statement.setString("name", "appended");
+        statement.setMemo("notes", "Appended memo");
+        statement.insertStatement();
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        assertEquals(DbfType.FoxPro_2_x_with_memo, dbfIterator.getDbfHeader().getTypeDbf());
+        assertEquals("Привет, memo", dbfIterator.nextRecord().getMemo("notes"));
+        assertEquals(null, dbfIterator.nextRecord().getMemo("notes"));
+        assertEquals(longText, dbfIterator.nextRecord().getMemo("notes"));
+        assertEquals("Appended memo", dbfIterator.nextRecord().getMemo("notes"));
+        dbfIterator.closeIterator();
+
+        // damaged block number and length of memo are not trusted
+        DbfUpdater dbfUpdater = DbfEngine.getUpdater(writeDbf, null);
+        DbfStatement updateStatement = dbfUpdater.loadStatement(1);
+        int notesOffset = dbfUpdater.getDbfHeader().getDbfColumn("notes").getDbfColumnPosition().getOffset();
+        System.arraycopy("   9999999".getBytes(), 0, updateStatement.getRecord(), notesOffset, 10);
+        dbfUpdater.updateRecord(1);
+        dbfUpdater.close();
+        RandomAccessFile raf = new RandomAccessFile(memoFile, "rw");
+        raf.seek(512 + 4);
+        raf.writeInt(Integer.MAX_VALUE);
+        raf.close();
+
+        dbfIterator = DbfEngine.getReader(writeDbf, null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                dbfIterator.nextRecord().getMemo("notes");
+                fail();
+            } catch (DbfEngineException e) {
+                assertEquals(DbfConstants.EXCP_MEMO_FORMAT, e.getMessage());
+            }
+        }
+        assertEquals(longText, dbfIterator.nextRecord().getMemo("notes"));
+        dbfIterator.closeIterator();
+
+        writeDbf.delete();
+        memoFile.delete();
+    }
+
+    @Test
+    public void testPackMemo() {
+        File writeDbf = new File("WRT_PACK_MEMO.DBF");
+        File memoFile = new File("WRT_PACK_MEMO.FPT");
+        writeDbf.delete();
+        memoFile.delete();
+
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("name", DbfColumnTypes.Character, 10, 0),
+                new DbfColumn("notes", DbfColumnTypes.Memo, 0, 0));
+        DbfStatement statement = dbfAppender.getStatement();
+        for (int i = 0; i < 3; i++) {
+            statement.setString("name", "rec" + i);
+            statement.setMemo("notes", "Memo of record " + i);
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+
+        // memo of first record is not referenced anymore
+        DbfUpdater dbfUpdater = DbfEngine.getUpdater(writeDbf, null);
+        DbfColumnPosition dcp = dbfUpdater.getDbfHeader().getDbfColumn("notes").getDbfColumnPosition();
+        byte[] record = new byte[dbfUpdater.getDbfHeader().getLengthRecord()];
+        Arrays.fill(record, (byte) DbfConstants.DBF_REC_FILLSYMB);
+        dbfUpdater.updateBytes(0, record, dcp.getOffset(), dcp.getColumnLength());
+        dbfUpdater.delete(2);
+        dbfUpdater.close();
+
+        long length = memoFile.length();
+        assertEquals(2, DbfEngine.packMemo(writeDbf));
+        assertTrue(memoFile.length() < length);
+        assertFalse(new File("WRT_PACK_MEMO.FPT.tmp").exists());
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        assertEquals(null, dbfIterator.nextRecord().getMemo("notes"));
+        assertEquals("Memo of record 1", dbfIterator.nextRecord().getMemo("notes"));
+        assertEquals("Memo of record 2", dbfIterator.nextRecord().getMemo("notes"));
+        dbfIterator.closeIterator();
+
+        writeDbf.delete();
+        memoFile.delete();
+    }
+
+    @Test
+    public void testParallelScanMemo() {
+        File writeDbf = new File("WRT_PARALLEL_MEMO.DBF");
+        File memoFile = new File("WRT_PARALLEL_MEMO.FPT");
+        writeDbf.delete();
+        memoFile.delete();
+
+        final int count = 4000;
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("num", DbfColumnTypes.Numeric, 6, 0),
+                new DbfColumn("notes", DbfColumnTypes.Memo, 0, 0));
+        DbfStatement statement = dbfAppender.getStatement();
+        for (int i = 0; i < count; i++) {
+            statement.setInt("num", i);
+            statement.setMemo("notes", memoOf(i));
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+
+        // memo file is shared by parts, so the first finished part must not close it for others
+        List<Integer> counts = DbfEngine.scanParallel(writeDbf, null, 8, new DbfPartitionHandler<Integer>() {
+            public Integer handlePartition(DbfIterator dbfIterator) {
+                int checked = 0;
+                while (dbfIterator.hasMoreRecords()) {
+                    DbfRecord dbfRecord = dbfIterator.nextRecord();
+                    assertEquals(memoOf(dbfRecord.getInt("num")), dbfRecord.getMemo("notes"));
+                    checked++;
+                }
+                return checked;
+            }
+        });
+        int total = 0;
+        for (Integer checked : counts) {
+            total += checked;
+        }
+        assertEquals(count, total);
+
+        Stream<DbfRecord> stream = DbfEngine.stream(writeDbf, null);
+        try {
+            assertEquals(count, stream.parallel()
+                    .filter(r -> memoOf(r.getInt("num")).equals(r.getMemo("notes")))
+                    .count());
+        } finally {
+            stream.close();
+        }
+
+        writeDbf.delete();
+        memoFile.delete();
+    }
+
+    private static String memoOf(int num) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 300) {
+            sb.append("Memo of record ").append(num).append(". ");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testVisualFoxProTypes() {
+        File writeDbf = new File("WRT_VFP.DBF");
+        File copyDbf = new File("WRT_VFP_COPY.DBF");
+        writeDbf.delete();
+        copyDbf.delete();
+
+        LocalDateTime dateTime = LocalDateTime.of(2020, 1, 8, 13, 45, 30, 250000000);
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(new DbfColumn("name", DbfColumnTypes.Varchar, 10, 0),
+                new DbfColumn("id", DbfColumnTypes.Integer, 0, 0),
+                new DbfColumn("rate", DbfColumnTypes.Double, 0, 2),
+                new DbfColumn("price", DbfColumnTypes.Currency, 0, 0),
+                new DbfColumn("stamp", DbfColumnTypes.DateTime, 0, 0),
+                new DbfColumn("raw", DbfColumnTypes.Varbinary, 4, 0));
+        DbfStatement statement = dbfAppender.getStatement();
+        statement.setString("name", "first");
+        statement.setInt("id", -7);
+        statement.setDouble("rate", 0.125);
+        statement.setBigDecimal("price", new BigDecimal("12.3456"));
+        statement.setLocalDateTime("stamp", dateTime);
+        statement.setBytes("raw", new byte[]{1, 2});
+        statement.insertStatement();
+        statement.setString("name", "second");
+        statement.setLong("id", 100000);
+        statement.setScaledLong("price", -155, 2);
+        statement.insertStatement();
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        assertEquals(DbfType.Visual_FoxPro, dbfHeader.getTypeDbf());
+        // varchar column adds hidden _NullFlags column
+        assertEquals(32 + 7 * 32 + 1 + 263, dbfHeader.getFirstRecordPosition());
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals("first", dbfRecord.getString("name"));
+        assertEquals(-7, dbfRecord.getInt("id"));
+        assertEquals(0.125, dbfRecord.getDouble("rate"), 0);
+        assertEquals(new BigDecimal("12.3456"), dbfRecord.getBigDecimal("price"));
+        assertEquals(dateTime, dbfRecord.getLocalDateTime("stamp"));
+        assertEquals(2, dbfRecord.getBytes("raw")[1]);
+        assertEquals(2, dbfRecord.getBytes("raw").length);
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(100000L, dbfRecord.getLong(dbfHeader.getDbfColumn("id")));
+        assertEquals(0, dbfRecord.getDouble("rate"), 0);
+        assertEquals(new BigDecimal("-1.5500"), dbfRecord.getBigDecimal("price"));
+        assertEquals(null, dbfRecord.getLocalDateTime("stamp"));
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getReader(writeDbf, null);
+        DbfRecordBatch batch = dbfIterator.nextBatch(10);
+        assertEquals(-7, batch.getVector("id").getLongs()[0]);
+        assertEquals(-1.55, batch.getVector("price").getDoubles()[1], 0);
+        dbfIterator.closeIterator();
+
+        assertEquals(1, DbfEngine.copy(writeDbf, copyDbf,
+                DbfFilter.where("price", DbfOperator.LT, new BigDecimal("12.34561"))
+                        .and(DbfFilter.where("id", DbfOperator.GT, 99999.5))));
+        dbfIterator = DbfEngine.getReader(copyDbf, null);
+        assertEquals("second", dbfIterator.nextRecord().getString("name"));
+        dbfIterator.closeIterator();
+
+        writeDbf.delete();
+        copyDbf.delete();
+    }
+
+    @Test
+    public void testNullFlags() {
+        File writeDbf = new File("WRT_NULLS.DBF");
+        File copyDbf = new File("WRT_NULLS_COPY.DBF");
+        writeDbf.delete();
+        copyDbf.delete();
+
+        DbfColumn name = new DbfColumn("name", DbfColumnTypes.Varchar, 10, 0);
+        name.setNullable(true);
+        DbfColumn qty = new DbfColumn("qty", DbfColumnTypes.Integer, 0, 0);
+        qty.setNullable(true);
+        DbfColumn price = new DbfColumn("price", DbfColumnTypes.Currency, 0, 0);
+        price.setNullable(true);
+        DbfAppender dbfAppender = DbfEngine.getWriter(writeDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(name, qty, new DbfColumn("note", DbfColumnTypes.Character, 5, 0), price);
+        DbfStatement statement = dbfAppender.getStatement();
+        statement.setString("name", "ab");
+        statement.setInt("qty", 5);
+        statement.setDouble("price", 1.5);
+        statement.insertStatement();
+        statement.setInt("qty", 7);
+        statement.setNull("qty");
+        try {
+            statement.setScaledLong("qty", 15, 1);
+            fail();
+        } catch (DbfEngineException e) {
+            // rejected value does not clear null bit
+            assertEquals(DbfConstants.EXCP_CP_ARITHERR, e.getMessage());
+        }
+        statement.setNull("name");
+        statement.setString("note", "x");
+        statement.insertStatement();
+        try {
+            statement.setNull("note");
+            fail("Field without null bit is not nullable");
+        } catch (DbfEngineException e) {
+            assertTrue(e.getMessage().startsWith(DbfConstants.EXCP_COLUMN_NOT_NULLABLE));
+        }
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(writeDbf, null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+        // varchar has length bit and null bit, integer and currency have null bits
+        assertEquals(1, dbfHeader.getDbfColumn("_NullFlags").getDbfColumnPosition().getColumnLength());
+        assertTrue(dbfHeader.getDbfColumn("qty").isNullable());
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals("ab", dbfRecord.getString("name"));
+        assertFalse(dbfRecord.isNull("name"));
+        assertFalse(dbfRecord.isNull("qty"));
+        assertEquals(new BigDecimal("1.5000"), dbfRecord.getBigDecimal("price"));
+        dbfRecord = dbfIterator.nextRecord();
+        assertTrue(dbfRecord.isNull("name"));
+        assertTrue(dbfRecord.isNull(dbfHeader.getDbfColumn("qty")));
+        assertEquals(null, dbfRecord.getString("name"));
+        assertFalse(dbfRecord.isNull("price"));
+        assertEquals(new BigDecimal("0.0000"), dbfRecord.getBigDecimal("price"));
+        assertFalse(dbfRecord.isNull("note"));
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getReader(writeDbf, null);
+        DbfRecordBatch batch = dbfIterator.nextBatch(10);
+        assertFalse(batch.getVector("qty").isNull(0));
+        assertTrue(batch.getVector("qty").isNull(1));
+        dbfIterator.closeIterator();
+
+        // null bits and length bits of projected columns are read with projection
+        dbfIterator = DbfEngine.getMappedReader(writeDbf, null).project("name");
+        dbfRecord = dbfIterator.nextRecord();
+        assertFalse(dbfRecord.isNull("name"));
+        assertEquals("ab", dbfRecord.getString("name"));
+        assertTrue(dbfIterator.nextRecord().isNull("name"));
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getMappedReader(writeDbf, null).project("note")
+                .where(DbfFilter.where("name", DbfOperator.EQ, null));
+        assertEquals("x", dbfIterator.nextRecord().getString("note"));
+        assertEquals(null, dbfIterator.nextRecord());
+        dbfIterator.closeIterator();
+
+        assertEquals(1, DbfEngine.copy(writeDbf, copyDbf, DbfFilter.where("qty", DbfOperator.EQ, null)));
+        copyDbf.delete();
+        assertEquals(0, DbfEngine.copy(writeDbf, copyDbf, DbfFilter.where("qty", DbfOperator.LT, 5)));
+        copyDbf.delete();
+
+        // bits of columns are placed differently in clone
+        dbfIterator = DbfEngine.getReader(writeDbf, null);
+        dbfAppender = DbfEngine.getWriter(copyDbf, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(dbfIterator.getDbfHeader(), "qty", "name");
+        statement = dbfAppender.getStatement();
+        while (dbfIterator.hasMoreRecords()) {
+            statement.fillStatement(dbfIterator.nextRecord());
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getReader(copyDbf, null);
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals(5, dbfRecord.getInt("qty"));
+        assertEquals("ab", dbfRecord.getString("name"));
+        dbfRecord = dbfIterator.nextRecord();
+        assertTrue(dbfRecord.isNull("qty"));
+        assertTrue(dbfRecord.isNull("name"));
+        dbfIterator.closeIterator();
+
+        writeDbf.delete();
+        copyDbf.delete();
+    }
+
+    @Test
+    public void testNullPrimitiveGetters() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DbfColumn[] columns = {new DbfColumn("cnt", DbfColumnTypes.Numeric, 5, 0),
+                new DbfColumn("sum_f", DbfColumnTypes.Float, 10, 2),
+                new DbfColumn("qty", DbfColumnTypes.Integer, 0, 0),
+                new DbfColumn("rate", DbfColumnTypes.Double, 0, 0),
+                new DbfColumn("price", DbfColumnTypes.Currency, 0, 0),
+                new DbfColumn("flag", DbfColumnTypes.Logical, 0, 0),
+                new DbfColumn("day", DbfColumnTypes.Date, 0, 0)};
+        for (DbfColumn column : columns) {
+            column.setNullable(true);
+        }
+        DbfAppender dbfAppender = DbfEngine.getWriter(bos, DbfCodePages.Cp866);
+        dbfAppender.defineColumns(columns);
+        DbfStatement statement = dbfAppender.getStatement();
+        for (int i = 0; i < 2; i++) {
+            statement.setInt("cnt", 12);
+            statement.setDouble("sum_f", 2.5);
+            statement.setInt("qty", 7);
+            statement.setDouble("rate", 0.25);
+            statement.setDouble("price", 1.5);
+            statement.setBoolean("flag", Boolean.TRUE);
+            statement.setEpochDay("day", LocalDate.of(2000, 2, 29).toEpochDay());
+            if (i == 1) {
+                // null bits are set over old values, as Visual Foxpro may keep them
+                for (DbfColumn column : columns) {
+                    DbfColumnPosition dcp = dbfAppender.getDbfHeader().getDbfColumn(column.getColumnName())
+                            .getDbfColumnPosition();
+                    statement.getRecord()[dcp.getNullByte()] |= dcp.getNullMask();
+                }
+            }
+            statement.insertStatement();
+        }
+        dbfAppender.writeDbfAndClose();
+
+        DbfIterator dbfIterator = DbfEngine.getReader(new ByteArrayInputStream(bos.toByteArray()), null);
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals(12, dbfRecord.getInt("cnt"));
+        assertEquals(12L, dbfRecord.getLong("cnt"));
+        assertEquals(12, dbfRecord.getShort("cnt"));
+        assertEquals(2.5f, dbfRecord.getFloat("sum_f"), 0.0f);
+        assertEquals(7, dbfRecord.getInt("qty"));
+        assertEquals(0.25d, dbfRecord.getDouble("rate"), 0.0d);
+        assertEquals(1.5d, dbfRecord.getDouble("price"), 0.0d);
+        assertTrue(dbfRecord.getBoolean("flag"));
+        assertEquals(20000229, dbfRecord.getDateAsInt("day"));
+
+        dbfRecord = dbfIterator.nextRecord();
+        for (DbfColumn column : columns) {
+            assertTrue(dbfRecord.isNull(column.getColumnName()));
+        }
+        assertEquals(0, dbfRecord.getInt("cnt"));
+        assertEquals(0L, dbfRecord.getLong("cnt"));
+        assertEquals(0, dbfRecord.getShort("cnt"));
+        assertEquals(0.0d, dbfRecord.getDouble("cnt"), 0.0d);
+        assertEquals(0.0f, dbfRecord.getFloat("sum_f"), 0.0f);
+        assertEquals(0, dbfRecord.getInt("qty"));
+        assertEquals(0L, dbfRecord.getLong("qty"));
+        assertEquals(0.0d, dbfRecord.getDouble("rate"), 0.0d);
+        assertEquals(0.0d, dbfRecord.getDouble("price"), 0.0d);
+        assertEquals(null, dbfRecord.getBigDecimal("price"));
+        assertFalse(dbfRecord.getBoolean("flag"));
+        assertEquals(0, dbfRecord.getDateAsInt("day"));
+        assertEquals(null, dbfRecord.getLocalDate("day"));
+        dbfIterator.closeIterator();
+    }
+
     @Test
     public void testDbfCloning() {
 
+        // memos of source file are read from its memo file
         DbfHeader dbfHeader = DbfEngine.getHeader(
-                TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+                TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null);
         DbfIterator dbfIterator = dbfHeader.getDbfIterator();
         System.out.println("DBF header info: " + dbfHeader.toString());
 
@@ -105,9 +969,9 @@ public class DbfWriterTest {
         }
 
         File cloneDbf = new File("FP_26_SAMPLE_CLONE.DBF");
-        if (cloneDbf.exists()) {
-            cloneDbf.delete();
-        }
+        File cloneMemo = new File("FP_26_SAMPLE_CLONE.FPT");
+        cloneDbf.delete();
+        cloneMemo.delete();
         DbfAppender dbfAppender = DbfEngine.getWriter(cloneDbf, DbfCodePages.Cp866);
         dbfAppender.defineColumns(dbfHeader);
 
@@ -120,6 +984,14 @@ public class DbfWriterTest {
 
         dbfAppender.writeDbfAndClose();
         dbfHeader.closeDbfHeader();
+
+        dbfIterator = DbfEngine.getReader(cloneDbf, null);
+        assertEquals(null, dbfIterator.nextRecord().getMemo("memo_val"));
+        assertEquals("Test for\r\nreading\r\nmemo field\r\n", dbfIterator.nextRecord().getMemo("memo_val"));
+        dbfIterator.closeIterator();
+
+        cloneDbf.delete();
+        cloneMemo.delete();
     }
 
     private void writeTwoRecordsToDbf(File writeDbf) {
@@ -2,13 +2,23 @@ package ru.smartflex.tools.dbf;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class Fp26ReaderTest {
 
@@ -59,9 +69,296 @@ public class Fp26ReaderTest {
                 assertEquals("Hello", string);
                 assertEquals(2.4456f, sumFloat, 0.0f);
                 assertEquals(new BigDecimal("120.44"), sumNumeric);
+                assertEquals(120.44d, dbfRecord.getDouble("sum_n"), 0.0d);
+                assertEquals(2.4456d, dbfRecord.getDouble("sum_f"), 0.0d);
                 assertEquals(true, bool);
                 assertEquals(date1912, date);
+                assertEquals(19120102, dbfRecord.getDateAsInt("date_val"));
+                assertEquals(LocalDate.of(1912, 1, 2), dbfRecord.getLocalDate("date_val"));
             }
+            if (dbfIterator.getCurrentRecord() == 3) {
+                assertEquals(0, dbfRecord.getDateAsInt("date_val"));
+                assertEquals(null, dbfRecord.getLocalDate("date_val"));
+            }
+        }
+    }
+
+    @Test
+    public void testReadBodyMapped() {
+        DbfIterator dbfIterator = DbfEngine.getMappedReader(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null);
+
+        int count = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            DbfRecord dbfRecord = dbfIterator.nextRecord();
+            count++;
+            if (dbfIterator.getCurrentRecord() == 3) {
+                assertEquals("Bye-bye", dbfRecord.getString("string"));
+                assertEquals(-3.5566f, dbfRecord.getFloat("sum_f"), 0.0f);
+                assertEquals(new BigDecimal("-15.99"), dbfRecord.getBigDecimal("sum_n"));
+                assertEquals(false, dbfRecord.getBoolean("bool_val"));
+            }
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testRandomAccess() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null);
+
+        DbfRecord dbfRecord = dbfIterator.readRecord(1);
+        assertEquals("Hello", dbfRecord.getString("string"));
+        assertEquals(1, dbfRecord.getCurrentRecord());
+
+        dbfRecord = dbfIterator.readRecord(0);
+        assertEquals(null, dbfRecord.getString("string"));
+
+        dbfIterator.goTo(2);
+        int count = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            dbfRecord = dbfIterator.nextRecord();
+            assertEquals("Bye-bye", dbfRecord.getString("string"));
+            count++;
+        }
+        assertEquals(1, count);
+
+        // the file is closed at the end of iteration, but it is reopened for random access
+        dbfRecord = dbfIterator.readRecord(1);
+        assertEquals(new BigDecimal("120.44"), dbfRecord.getBigDecimal("sum_n"));
+
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testReadBatch() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+
+        DbfRecordBatch batch = dbfIterator.nextBatch(2);
+        assertEquals(2, batch.getRowCount());
+        assertEquals(0, batch.getFirstRecord());
+
+        DbfColumnVector string = batch.getVector("string");
+        assertEquals(null, string.getString(0));
+        assertEquals("Hello", string.getString(1));
+        assertEquals(120.44d, batch.getVector("sum_n").getDoubles()[1], 0.0d);
+        assertEquals(2.4456d, batch.getVector("sum_f").getDoubles()[1], 0.0d);
+        assertEquals(LocalDate.of(1912, 1, 2).toEpochDay(), batch.getVector("date_val").getEpochDays()[1]);
+        assertEquals(true, batch.getVector("bool_val").getBooleans().get(1));
+        assertEquals(true, batch.getVector("sum_n").isNull(0));
+
+        batch = dbfIterator.nextBatch(2);
+        assertEquals(1, batch.getRowCount());
+        assertEquals(2, batch.getFirstRecord());
+        assertEquals("Bye-bye", batch.getVector("string").getString(0));
+        assertEquals(-15.99d, batch.getVector("sum_n").getDoubles()[0], 0.0d);
+        assertEquals(true, batch.getVector("date_val").isNull(0));
+        assertEquals(false, batch.getVector("bool_val").getBooleans().get(0));
+        assertEquals(false, batch.isDeleted(0));
+
+        assertEquals(null, dbfIterator.nextBatch(2));
+    }
+
+    @Test
+    public void testProjection() {
+        DbfIterator dbfIterator = DbfEngine.getMappedReader(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null)
+                .project("sum_n", "string");
+
+        DbfRecord dbfRecord = dbfIterator.readRecord(1);
+        assertEquals("Hello", dbfRecord.getString("string"));
+        assertEquals(new BigDecimal("120.44"), dbfRecord.getBigDecimal("sum_n"));
+        try {
+            dbfRecord.getFloat("sum_f");
+            assertEquals(true, false);
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_COLUMN_NOT_PROJECTED + "sum_f", e.getMessage());
+        }
+
+        dbfIterator.goTo(0);
+        DbfRecordBatch batch = dbfIterator.nextBatch(10);
+        assertEquals(3, batch.getRowCount());
+        assertEquals(-15.99d, batch.getVector("sum_n").getDoubles()[2], 0.0d);
+        try {
+            batch.getVector("date_val");
+            assertEquals(true, false);
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_COLUMN_NOT_PROJECTED + "DATE_VAL", e.getMessage());
+        }
+        dbfIterator.closeIterator();
+
+        try (Stream<DbfRecord> stream = DbfEngine.stream(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null, "sum_f")) {
+            assertEquals(-1.111d, stream.parallel().mapToDouble(r -> r.getDouble("sum_f")).sum(), 1e-9d);
+        }
+    }
+
+    @Test
+    public void testFilter() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null)
+                .where("sum_n", DbfOperator.LT, 0);
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        assertEquals("Bye-bye", dbfRecord.getString("string"));
+        assertEquals(2, dbfRecord.getCurrentRecord());
+        assertEquals(null, dbfIterator.nextRecord());
+
+        dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null)
+                .where(DbfFilter.where("string", DbfOperator.STARTS_WITH, "Hel")
+                        .or(DbfFilter.where("date_val", DbfOperator.EQ, null))
+                        .and(DbfFilter.notDeleted()));
+        int count = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            assertEquals(true, dbfIterator.hasMoreRecords());
+            dbfIterator.nextRecord();
+            count++;
+        }
+        // first record has empty date too
+        assertEquals(3, count);
+
+        dbfIterator = DbfEngine.getMappedReader(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null)
+                .project("string")
+                .where("date_val", DbfOperator.GE, LocalDate.of(1912, 1, 2))
+                .where("sum_f", DbfOperator.EQ, new BigDecimal("2.4456"))
+                .where("bool_val", DbfOperator.EQ, Boolean.TRUE)
+                .where("string", DbfOperator.EQ, "Hello");
+        DbfRecordBatch batch = dbfIterator.nextBatch(10);
+        assertEquals(1, batch.getRowCount());
+        assertEquals(1, batch.getRecordNumber(0));
+        assertEquals("Hello", batch.getVector("string").getString(0));
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testReadMemo() throws Exception {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null);
+        assertEquals(null, dbfIterator.nextRecord().getMemo("memo_val"));
+
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        String memo = dbfRecord.getMemo("memo_val");
+        assertEquals("Test for\r\nreading\r\nmemo field\r\n", memo);
+
+        InputStream is = dbfRecord.getMemoStream(dbfIterator.getDbfHeader().getDbfColumn("memo_val"));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) != -1) {
+            bos.write(b);
+        }
+        assertEquals(memo, new String(bos.toByteArray(), "Cp866"));
+        assertTrue(dbfIterator.getDbfHeader().getMemoFile().isOpened());
+        // memo file is closed by the end of iteration
+        while (dbfIterator.hasMoreRecords()) {
+            dbfIterator.nextRecord();
+        }
+        assertFalse(dbfIterator.getDbfHeader().getMemoFile().isOpened());
+        dbfIterator.closeIterator();
+
+        dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        dbfIterator.nextRecord();
+        dbfRecord = dbfIterator.nextRecord();
+        try {
+            dbfRecord.getMemo("memo_val");
+            fail();
+        } catch (DbfEngineException e) {
+            assertEquals(DbfConstants.EXCP_MEMO_MISSED + "memo_val", e.getMessage());
+        }
+        dbfIterator.setMemoFile(TestHelper.getResourceFile("FP_26_SAMPLE.FPT"));
+        assertEquals(memo, dbfRecord.getMemo("memo_val"));
+        dbfIterator.closeIterator();
+    }
+
+    @Test
+    public void testPrefetchReader() {
+        DbfIterator dbfIterator = DbfEngine.getPrefetchReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null, 1, 2);
+
+        int count = 0;
+        while (dbfIterator.hasMoreRecords()) {
+            DbfRecord dbfRecord = dbfIterator.nextRecord();
+            count++;
+            if (dbfIterator.getCurrentRecord() == 2) {
+                assertEquals("Hello", dbfRecord.getString("string"));
+                assertEquals(new BigDecimal("120.44"), dbfRecord.getBigDecimal("sum_n"));
+            }
+        }
+        assertEquals(3, count);
+
+        dbfIterator = DbfEngine.getPrefetchReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        DbfRecordBatch batch = dbfIterator.nextBatch(10);
+        assertEquals(3, batch.getRowCount());
+        assertEquals("Bye-bye", batch.getVector("string").getString(2));
+    }
+
+    @Test
+    public void testColumnHandles() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        DbfHeader dbfHeader = dbfIterator.getDbfHeader();
+
+        DbfColumn string = dbfHeader.getDbfColumn("string");
+        DbfColumn sumN = dbfHeader.getDbfColumn(1);
+        DbfColumn date = dbfHeader.getDbfColumn("DATE_VAL");
+        assertEquals("SUM_N", sumN.getColumnName());
+
+        DbfRecord dbfRecord = dbfIterator.nextRecord();
+        dbfRecord = dbfIterator.nextRecord();
+        assertEquals("Hello", dbfRecord.getString(string));
+        assertEquals(120.44d, dbfRecord.getDouble(sumN), 0.0d);
+        assertEquals(19120102, dbfRecord.getDateAsInt(date));
+        assertEquals("120.44", dbfRecord.getAsString(sumN));
+
+        dbfIterator.closeIterator();
+    }
+
+    @Test(expected = DbfEngineException.class)
+    public void testColumnHandleNotInHeader() {
+        // column of other header is found by name
+        DbfColumn missed = new DbfColumn("missed", DbfColumnTypes.Character, 5, 0);
+
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        try {
+            dbfIterator.nextRecord().getString(missed);
+        } finally {
+            dbfIterator.closeIterator();
+        }
+    }
+
+    @Test(expected = DbfEngineException.class)
+    public void testRandomAccessForStream() {
+        DbfIterator dbfIterator = DbfEngine.getReader(TestHelper.getFile("FP_26_SAMPLE.DBF"), null);
+        dbfIterator.goTo(1);
+    }
+
+    @Test
+    public void testScanParallel() {
+        List<BigDecimal> sums = DbfEngine.scanParallel(TestHelper.getResourceFile("FP_26_SAMPLE.DBF"), null, 2,
+                new DbfPartitionHandler<BigDecimal>() {
+                    public BigDecimal handlePartition(DbfIterator dbfIterator) {
+                        BigDecimal sum = BigDecimal.ZERO;
+                        while (dbfIterator.hasMoreRecords()) {
+                            BigDecimal value = dbfIterator.nextRecord().getBigDecimal("sum_n");
+                            if (value != null) {
+                                sum = sum.add(value);
+                            }
+                        }
+                        return sum;
+                    }
+                });
+
+        assertEquals(2, sums.size());
+        assertEquals(new BigDecimal("120.44"), sums.get(0));
+        assertEquals(new BigDecimal("-15.99"), sums.get(1));
+    }
+
+    @Test
+    public void testStream() {
+        File dbfFile = TestHelper.getResourceFile("FP_26_SAMPLE.DBF");
+
+        try (Stream<DbfRecord> stream = DbfEngine.stream(dbfFile, null)) {
+            assertEquals(3, stream.parallel().count());
+        }
+
+        try (Stream<DbfRecord> stream = DbfEngine.stream(dbfFile, null)) {
+            List<DbfRecord> list = stream.parallel()
+                    .filter(r -> r.getString("string") != null)
+                    .map(DbfRecord::copyRecord)
+                    .collect(Collectors.toList());
+            assertEquals(2, list.size());
+            assertEquals("Hello", list.get(0).getString("string"));
+            assertEquals("Bye-bye", list.get(1).getString("string"));
         }
     }
 
@@ -1,10 +1,20 @@
 package ru.smartflex.tools.dbf;
 
+import java.io.File;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 
 class TestHelper {
 
     static InputStream getFile(String fn) {
         return Thread.currentThread().getContextClassLoader().getResourceAsStream(fn);
     }
+
+    static File getResourceFile(String fn) {
+        try {
+            return new File(Thread.currentThread().getContextClassLoader().getResource(fn).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }